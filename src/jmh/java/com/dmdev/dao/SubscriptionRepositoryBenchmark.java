@@ -0,0 +1,100 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.ConnectionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class SubscriptionRepositoryBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final String CREATE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription
+            (
+                id INT AUTO_INCREMENT PRIMARY KEY ,
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                provider VARCHAR(16) NOT NULL ,
+                expiration_date DATETIME NOT NULL ,
+                status VARCHAR(16) NOT NULL ,
+                UNIQUE (user_id, name)
+            );
+            """;
+
+    private static final Instant EXPIRATION_DATE = Instant.now().plus(Duration.ofDays(365));
+
+    @Param({"memory", "jdbc"})
+    private String implementation;
+
+    private SubscriptionRepository subscriptionDao;
+
+    @Setup
+    public void prepare() throws SQLException {
+        if (implementation.equals("jdbc")) {
+            try (var connection = ConnectionManager.get();
+                 var statement = connection.createStatement()) {
+                statement.execute(CREATE_SQL);
+                statement.execute("DELETE FROM subscription");
+            }
+            subscriptionDao = SubscriptionDao.getInstance();
+        } else {
+            subscriptionDao = new InMemorySubscriptionDao();
+        }
+        for (int userId = 0; userId < USERS; userId++) {
+            subscriptionDao.upsertByKey(getSubscription(userId));
+        }
+    }
+
+    @Benchmark
+    public List<Subscription> findByUserId() {
+        return subscriptionDao.findByUserId(ThreadLocalRandom.current().nextInt(USERS));
+    }
+
+    @Benchmark
+    public Optional<Subscription> findById() {
+        return subscriptionDao.findById(ThreadLocalRandom.current().nextInt(1, USERS));
+    }
+
+    @Benchmark
+    public Subscription upsertByKey() {
+        return subscriptionDao.upsertByKey(getSubscription(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    private static Subscription getSubscription(int userId) {
+        return Subscription.builder()
+                .userId(userId)
+                .name("Music")
+                .provider(APPLE)
+                .expirationDate(EXPIRATION_DATE)
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionRowMappingBenchmark {
+
+    private final SubscriptionDao subscriptionDao = new SubscriptionDao();
+    private SimpleResultSet resultSet;
+
+    @Setup
+    public void prepareResultSet() {
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("user_id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("name", Types.VARCHAR, 64, 0);
+        resultSet.addColumn("provider", Types.VARCHAR, 16, 0);
+        resultSet.addColumn("expiration_date", Types.TIMESTAMP, 0, 0);
+        resultSet.addColumn("status", Types.VARCHAR, 16, 0);
+        resultSet.addRow(1, 11, "Music", "APPLE", Timestamp.from(Instant.now()), "ACTIVE");
+    }
+
+    @Benchmark
+    public Subscription buildEntity() throws SQLException {
+        resultSet.beforeFirst();
+        resultSet.next();
+        return subscriptionDao.buildEntity(resultSet);
+    }
+}
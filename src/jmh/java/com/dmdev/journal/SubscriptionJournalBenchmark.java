@@ -0,0 +1,71 @@
+package com.dmdev.journal;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionJournalBenchmark {
+
+    private static final Subscription SUBSCRIPTION = Subscription.builder()
+            .id(1)
+            .userId(1)
+            .name("Music")
+            .provider(APPLE)
+            .expirationDate(Instant.now().plus(Duration.ofDays(365)))
+            .status(Status.ACTIVE)
+            .build();
+
+    private Path directory;
+    private SubscriptionJournal journal;
+
+    @Setup
+    public void prepare() throws IOException {
+        directory = Files.createTempDirectory("subscription-journal");
+        journal = new SubscriptionJournal(directory, 64 * 1024 * 1024, 256, Duration.ofMillis(100), Clock.systemUTC());
+    }
+
+    @TearDown
+    public void cleanup() throws IOException {
+        journal.close();
+        try (var files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long appendUpsert() {
+        return journal.append(JournalEntryType.UPSERT, SUBSCRIPTION.getId(), SUBSCRIPTION);
+    }
+
+    @Benchmark
+    public long appendCancel() {
+        return journal.append(JournalEntryType.CANCEL, SUBSCRIPTION.getId(), null);
+    }
+}
@@ -0,0 +1,42 @@
+package com.dmdev.mapper;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Subscription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateSubscriptionMapperBenchmark {
+
+    private final CreateSubscriptionMapper mapper = CreateSubscriptionMapper.getInstance();
+
+    private final CreateSubscriptionDto dto = CreateSubscriptionDto.builder()
+            .userId(11)
+            .name("Music")
+            .provider(APPLE.name())
+            .expirationDate(Instant.now().plus(Duration.ofDays(365)))
+            .build();
+
+    @Benchmark
+    public Subscription map() {
+        return mapper.map(dto);
+    }
+}
@@ -0,0 +1,111 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionServiceBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final String CREATE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription
+            (
+                id INT AUTO_INCREMENT PRIMARY KEY ,
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                provider VARCHAR(16) NOT NULL ,
+                expiration_date DATETIME NOT NULL ,
+                status VARCHAR(16) NOT NULL ,
+                UNIQUE (user_id, name)
+            );
+            """;
+
+    private static final Instant EXPIRATION_DATE = Instant.now().plus(Duration.ofDays(365));
+
+    private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+    private final SubscriptionService subscriptionService = new SubscriptionService(
+            subscriptionDao, CreateSubscriptionMapper.getInstance(),
+            CreateSubscriptionValidator.getInstance(), Clock.systemUTC());
+
+    @Setup
+    public void prepareDatabase() throws SQLException {
+        try (var connection = ConnectionManager.get();
+             var statement = connection.createStatement()) {
+            statement.execute(CREATE_SQL);
+            statement.execute("DELETE FROM subscription");
+        }
+    }
+
+    @Benchmark
+    public Subscription upsert() {
+        return subscriptionService.upsert(CreateSubscriptionDto.builder()
+                .userId(ThreadLocalRandom.current().nextInt(1, USERS))
+                .name("Music")
+                .provider(APPLE.name())
+                .expirationDate(EXPIRATION_DATE)
+                .build());
+    }
+
+    @Benchmark
+    public void cancel(ActiveSubscription activeSubscription) {
+        subscriptionService.cancel(activeSubscription.subscription.getId());
+    }
+
+    @Benchmark
+    public void expire(ActiveSubscription activeSubscription) {
+        subscriptionService.expire(activeSubscription.subscription.getId());
+    }
+
+    @State(Scope.Benchmark)
+    public static class ActiveSubscription {
+
+        private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+        private Subscription subscription;
+
+        @Setup
+        public void insertSubscription() {
+            subscription = subscriptionDao.insert(Subscription.builder()
+                    .userId(0)
+                    .name("Music")
+                    .provider(APPLE)
+                    .expirationDate(EXPIRATION_DATE)
+                    .status(Status.ACTIVE)
+                    .build());
+        }
+
+        @Setup(Level.Invocation)
+        public void activateSubscription() {
+            subscriptionDao.update(subscription.setStatus(Status.ACTIVE).setExpirationDate(EXPIRATION_DATE));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.dmdev.validator;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateSubscriptionValidatorBenchmark {
+
+    private final CreateSubscriptionValidator validator = CreateSubscriptionValidator.getInstance();
+
+    private final CreateSubscriptionDto validDto = CreateSubscriptionDto.builder()
+            .userId(11)
+            .name("Music")
+            .provider(APPLE.name())
+            .expirationDate(Instant.now().plus(Duration.ofDays(365)))
+            .build();
+    private final CreateSubscriptionDto invalidDto = CreateSubscriptionDto.builder()
+            .name("")
+            .provider("fake")
+            .expirationDate(Instant.EPOCH)
+            .build();
+
+    @Benchmark
+    public ValidationResult validateValidDto() {
+        return validator.validate(validDto);
+    }
+
+    @Benchmark
+    public ValidationResult validateInvalidDto() {
+        return validator.validate(invalidDto);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dmdev.cache;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class CacheStats {
+    long hitCount;
+    long missCount;
+    long loadCount;
+    long loadFailureCount;
+    long evictionCount;
+    Duration totalLoadTime;
+
+    public double getHitRatio() {
+        var requestCount = hitCount + missCount;
+        return requestCount == 0
+                ? 1
+                : (double) hitCount / requestCount;
+    }
+
+    public Duration getAverageLoadPenalty() {
+        var count = loadCount + loadFailureCount;
+        return count == 0
+                ? Duration.ZERO
+                : totalLoadTime.dividedBy(count);
+    }
+}
@@ -0,0 +1,199 @@
+package com.dmdev.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+public class LoadingCache<K, V> {
+
+    private final int maximumSize;
+    private final int evictionTarget;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, Loading<V>> loadings = new ConcurrentHashMap<>();
+    private final AtomicLong accessOrder = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    public LoadingCache(int maximumSize, Duration ttl) {
+        this(maximumSize, ttl, System::nanoTime);
+    }
+
+    LoadingCache(int maximumSize, Duration ttl, LongSupplier ticker) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.evictionTarget = maximumSize - maximumSize / 10;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        var value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        var loading = new Loading<V>();
+        var inFlight = loadings.putIfAbsent(key, loading);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        var start = ticker.getAsLong();
+        try {
+            V loaded = loader.apply(key);
+            totalLoadNanos.add(ticker.getAsLong() - start);
+            loads.increment();
+            store(key, loaded, loading);
+            loading.future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            totalLoadNanos.add(ticker.getAsLong() - start);
+            loadFailures.increment();
+            loading.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadings.remove(key, loading);
+        }
+    }
+
+    public V getIfPresent(K key) {
+        var entry = entries.get(key);
+        if (entry != null && isExpired(entry)) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        entry.lastAccess = accessOrder.incrementAndGet();
+        return entry.value;
+    }
+
+    public V peek(K key) {
+        var entry = entries.get(key);
+        return entry != null && !isExpired(entry) ? entry.value : null;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, newEntry(value));
+        evictIfNeeded();
+    }
+
+    public void invalidate(K key) {
+        var loading = loadings.remove(key);
+        if (loading != null) {
+            loading.stale = true;
+        }
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        loadings.values().forEach(loading -> loading.stale = true);
+        loadings.clear();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(
+                hits.sum(),
+                misses.sum(),
+                loads.sum(),
+                loadFailures.sum(),
+                evictions.sum(),
+                Duration.ofNanos(totalLoadNanos.sum()));
+    }
+
+    private void store(K key, V value, Loading<V> loading) {
+        if (value == null) {
+            return;
+        }
+        var entry = newEntry(value);
+        entries.compute(key, (ignored, current) -> loading.stale ? current : entry);
+        evictIfNeeded();
+    }
+
+    private Entry<V> newEntry(V value) {
+        return new Entry<>(value, ticker.getAsLong() + ttlNanos, accessOrder.incrementAndGet());
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return entry.expiresAtNanos - ticker.getAsLong() <= 0;
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maximumSize) {
+            return;
+        }
+        synchronized (evictionLock) {
+            if (entries.size() <= maximumSize) {
+                return;
+            }
+            List<Map.Entry<K, Entry<V>>> candidates = new ArrayList<>(entries.entrySet());
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess));
+            var excess = entries.size() - evictionTarget;
+            for (int i = 0; i < candidates.size() && excess > 0; i++) {
+                var candidate = candidates.get(i);
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                    excess--;
+                }
+            }
+        }
+    }
+
+    private static <V> V await(Loading<V> loading) {
+        try {
+            return loading.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAtNanos;
+        private volatile long lastAccess;
+
+        private Entry(V value, long expiresAtNanos, long lastAccess) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static class Loading<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile boolean stale;
+    }
+}
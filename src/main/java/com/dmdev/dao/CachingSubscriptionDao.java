@@ -0,0 +1,216 @@
+package com.dmdev.dao;
+
+import com.dmdev.cache.CacheStats;
+import com.dmdev.cache.LoadingCache;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.TransactionOptions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+public class CachingSubscriptionDao implements SubscriptionRepository {
+
+    private final SubscriptionRepository delegate;
+    private final LoadingCache<Integer, Optional<Subscription>> byId;
+    private final LoadingCache<Integer, List<Subscription>> byUserId;
+    private final ThreadLocal<Invalidations> transaction = new ThreadLocal<>();
+
+    public CachingSubscriptionDao(SubscriptionRepository delegate, int maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.byId = new LoadingCache<>(maximumSize, ttl);
+        this.byUserId = new LoadingCache<>(maximumSize, ttl);
+    }
+
+    @Override
+    public <T> T inTransaction(TransactionOptions options, Supplier<T> work) {
+        if (transaction.get() != null) {
+            return delegate.inTransaction(options, work);
+        }
+        var invalidations = new Invalidations();
+        transaction.set(invalidations);
+        try {
+            return delegate.inTransaction(options, work);
+        } finally {
+            transaction.remove();
+            invalidations.replay();
+        }
+    }
+
+    @Override
+    public int shardOf(Integer userId) {
+        return delegate.shardOf(userId);
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        if (transaction.get() != null) {
+            return delegate.findById(id);
+        }
+        return byId.get(id, key -> delegate.findById(key).map(CachingSubscriptionDao::copy))
+                .map(CachingSubscriptionDao::copy);
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        if (transaction.get() != null) {
+            return delegate.findByUserId(userId);
+        }
+        return copy(byUserId.get(userId, key -> copy(delegate.findByUserId(key))));
+    }
+
+    @Override
+    public Map<Integer, Subscription> findByIds(Collection<Integer> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public Map<Integer, List<Subscription>> findByUserIds(Collection<Integer> userIds) {
+        return delegate.findByUserIds(userIds);
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        var cached = byId.peek(id);
+        return invalidate(id, cached, delegate.delete(id));
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        var previous = byId.peek(entity.getId());
+        var updated = delegate.update(entity);
+        invalidate(updated);
+        if (previous != null) {
+            previous.ifPresent(subscription -> invalidateUser(subscription.getUserId()));
+        }
+        return updated;
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        return invalidate(delegate.insert(entity));
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        delegate.insertAll(entities).forEach(this::invalidate);
+        return entities;
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        delegate.updateAll(entities).forEach(this::invalidate);
+        return entities;
+    }
+
+    @Override
+    public Subscription upsertByKey(Subscription entity) {
+        return invalidate(delegate.upsertByKey(entity));
+    }
+
+    @Override
+    public boolean cancelIfActive(Integer id) {
+        var cached = byId.peek(id);
+        return invalidate(id, cached, delegate.cancelIfActive(id));
+    }
+
+    @Override
+    public boolean expireIfNotExpired(Integer id, Instant expirationDate) {
+        var cached = byId.peek(id);
+        return invalidate(id, cached, delegate.expireIfNotExpired(id, expirationDate));
+    }
+
+    @Override
+    public boolean expireIfDue(Integer id, Instant instant) {
+        var cached = byId.peek(id);
+        return invalidate(id, cached, delegate.expireIfDue(id, instant));
+    }
+
+    public CacheStats getByIdStats() {
+        return byId.stats();
+    }
+
+    public CacheStats getByUserIdStats() {
+        return byUserId.stats();
+    }
+
+    private Subscription invalidate(Subscription subscription) {
+        invalidateId(subscription.getId());
+        invalidateUser(subscription.getUserId());
+        return subscription;
+    }
+
+    private boolean invalidate(Integer id, Optional<Subscription> cached, boolean changed) {
+        invalidateId(id);
+        if (cached != null) {
+            cached.ifPresent(subscription -> invalidateUser(subscription.getUserId()));
+        } else if (changed) {
+            invalidateAllUsers();
+        }
+        return changed;
+    }
+
+    private void invalidateId(Integer id) {
+        byId.invalidate(id);
+        var invalidations = transaction.get();
+        if (invalidations != null) {
+            invalidations.ids.add(id);
+        }
+    }
+
+    private void invalidateUser(Integer userId) {
+        byUserId.invalidate(userId);
+        var invalidations = transaction.get();
+        if (invalidations != null) {
+            invalidations.userIds.add(userId);
+        }
+    }
+
+    private void invalidateAllUsers() {
+        byUserId.invalidateAll();
+        var invalidations = transaction.get();
+        if (invalidations != null) {
+            invalidations.allUsers = true;
+        }
+    }
+
+    private static List<Subscription> copy(List<Subscription> subscriptions) {
+        List<Subscription> copies = new ArrayList<>(subscriptions.size());
+        for (Subscription subscription : subscriptions) {
+            copies.add(copy(subscription));
+        }
+        return copies;
+    }
+
+    private static Subscription copy(Subscription subscription) {
+        return subscription.toBuilder().build();
+    }
+
+    private class Invalidations {
+
+        private final Set<Integer> ids = new HashSet<>();
+        private final Set<Integer> userIds = new HashSet<>();
+        private boolean allUsers;
+
+        private void replay() {
+            ids.forEach(byId::invalidate);
+            if (allUsers) {
+                byUserId.invalidateAll();
+            } else {
+                userIds.forEach(byUserId::invalidate);
+            }
+        }
+    }
+}
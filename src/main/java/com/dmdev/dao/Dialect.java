@@ -0,0 +1,23 @@
+package com.dmdev.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+public enum Dialect {
+    POSTGRES("PostgreSQL"), H2("H2");
+
+    private final String productName;
+
+    Dialect(String productName) {
+        this.productName = productName;
+    }
+
+    public static Dialect of(Connection connection) throws SQLException {
+        var productName = connection.getMetaData().getDatabaseProductName();
+        return Arrays.stream(values())
+                .filter(dialect -> dialect.productName.equalsIgnoreCase(productName))
+                .findFirst()
+                .orElseThrow(() -> new SQLException("Unsupported database: " + productName));
+    }
+}
@@ -0,0 +1,227 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.TransactionOptions;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+public class InMemorySubscriptionDao implements SubscriptionRepository {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final ConcurrentMap<Integer, Subscription> rows = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, List<Integer>> idsByUserId = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final ReentrantReadWriteLock transactionLock = new ReentrantReadWriteLock();
+
+    @Override
+    public <T> T inTransaction(TransactionOptions options, Supplier<T> work) {
+        if (options.isReadOnly() || transactionLock.isWriteLockedByCurrentThread()) {
+            return work.get();
+        }
+        transactionLock.writeLock().lock();
+        try {
+            Map<Integer, Subscription> rowsSnapshot = new HashMap<>(rows);
+            Map<Integer, List<Integer>> idsSnapshot = new HashMap<>(idsByUserId);
+            try {
+                return work.get();
+            } catch (Throwable e) {
+                rows.clear();
+                rows.putAll(rowsSnapshot);
+                idsByUserId.clear();
+                idsByUserId.putAll(idsSnapshot);
+                throw e;
+            }
+        } finally {
+            transactionLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return rows.values().stream()
+                .map(InMemorySubscriptionDao::copy)
+                .toList();
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        return Optional.ofNullable(rows.get(id))
+                .map(InMemorySubscriptionDao::copy);
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (Integer id : idsByUserId.getOrDefault(userId, List.of())) {
+            var subscription = rows.get(id);
+            if (subscription != null && subscription.getUserId().equals(userId)) {
+                subscriptions.add(copy(subscription));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        return write(() -> {
+            var subscription = rows.get(id);
+            if (subscription == null) {
+                return false;
+            }
+            var deleted = new AtomicBoolean();
+            idsByUserId.computeIfPresent(subscription.getUserId(), (userId, ids) -> {
+                deleted.set(rows.remove(id) != null);
+                return without(ids, id);
+            });
+            return deleted.get();
+        });
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        return write(() -> {
+            var existing = rows.get(entity.getId());
+            if (existing == null) {
+                return entity;
+            }
+            var stored = copy(entity);
+            idsByUserId.compute(stored.getUserId(), (userId, ids) -> {
+                var current = ids == null ? List.<Integer>of() : ids;
+                checkUnique(current, stored);
+                if (rows.replace(stored.getId(), stored) == null) {
+                    return ids;
+                }
+                return current.contains(stored.getId()) ? current : with(current, stored.getId());
+            });
+            if (!existing.getUserId().equals(stored.getUserId())) {
+                idsByUserId.computeIfPresent(existing.getUserId(), (userId, ids) -> without(ids, stored.getId()));
+            }
+            return entity;
+        });
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        return write(() -> {
+            var stored = copy(entity).setId(sequence.incrementAndGet());
+            idsByUserId.compute(stored.getUserId(), (userId, ids) -> {
+                var current = ids == null ? List.<Integer>of() : ids;
+                checkUnique(current, stored);
+                rows.put(stored.getId(), stored);
+                return with(current, stored.getId());
+            });
+            return entity.setId(stored.getId());
+        });
+    }
+
+    @Override
+    public Subscription upsertByKey(Subscription entity) {
+        return write(() -> {
+            var stored = copy(entity);
+            idsByUserId.compute(stored.getUserId(), (userId, ids) -> {
+                var current = ids == null ? List.<Integer>of() : ids;
+                var existingId = findIdByName(current, stored.getName());
+                stored.setId(existingId != null ? existingId : sequence.incrementAndGet());
+                rows.put(stored.getId(), stored);
+                return existingId != null ? current : with(current, stored.getId());
+            });
+            return entity.setId(stored.getId());
+        });
+    }
+
+    @Override
+    public boolean cancelIfActive(Integer id) {
+        return transition(id, subscription -> subscription.getStatus() == Status.ACTIVE,
+                subscription -> subscription.setStatus(Status.CANCELED));
+    }
+
+    @Override
+    public boolean expireIfNotExpired(Integer id, Instant expirationDate) {
+        return transition(id, subscription -> subscription.getStatus() != Status.EXPIRED,
+                subscription -> subscription.setStatus(Status.EXPIRED).setExpirationDate(expirationDate));
+    }
+
+    @Override
+    public boolean expireIfDue(Integer id, Instant instant) {
+        return transition(id,
+                subscription -> subscription.getStatus() == Status.ACTIVE && !subscription.getExpirationDate().isAfter(instant),
+                subscription -> subscription.setStatus(Status.EXPIRED));
+    }
+
+    private boolean transition(Integer id, Predicate<Subscription> expected, UnaryOperator<Subscription> change) {
+        return write(() -> {
+            var changed = new AtomicBoolean();
+            rows.computeIfPresent(id, (key, subscription) -> {
+                if (!expected.test(subscription)) {
+                    return subscription;
+                }
+                changed.set(true);
+                return change.apply(copy(subscription));
+            });
+            return changed.get();
+        });
+    }
+
+    private <T> T write(Supplier<T> change) {
+        transactionLock.readLock().lock();
+        try {
+            return change.get();
+        } finally {
+            transactionLock.readLock().unlock();
+        }
+    }
+
+    private Integer findIdByName(List<Integer> ids, String name) {
+        for (Integer id : ids) {
+            var subscription = rows.get(id);
+            if (subscription != null && subscription.getName().equals(name)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private void checkUnique(List<Integer> ids, Subscription subscription) {
+        var existingId = findIdByName(ids, subscription.getName());
+        if (existingId != null && !Objects.equals(existingId, subscription.getId())) {
+            var message = String.format("Subscription %s already exists for user %d",
+                    subscription.getName(), subscription.getUserId());
+            throw new IllegalStateException(message, new SQLIntegrityConstraintViolationException(message, UNIQUE_VIOLATION));
+        }
+    }
+
+    private static List<Integer> with(List<Integer> ids, Integer id) {
+        List<Integer> result = new ArrayList<>(ids.size() + 1);
+        result.addAll(ids);
+        result.add(id);
+        return List.copyOf(result);
+    }
+
+    private static List<Integer> without(List<Integer> ids, Integer id) {
+        var result = ids.stream()
+                .filter(existingId -> !existingId.equals(id))
+                .toList();
+        return result.isEmpty() ? null : result;
+    }
+
+    private static Subscription copy(Subscription subscription) {
+        return subscription.toBuilder().build();
+    }
+}
@@ -0,0 +1,268 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.TransactionOptions;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class ShardedSubscriptionDao implements SubscriptionRepository, AutoCloseable {
+
+    private static final int UNBOUND = -1;
+
+    private final List<SubscriptionDao> shards;
+    private final ExecutorService executor;
+    private final ThreadLocal<Integer> transactionShard = new ThreadLocal<>();
+
+    public ShardedSubscriptionDao(List<SubscriptionDao> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        var counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            var thread = new Thread(runnable, "subscription-shard-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static ShardedSubscriptionDao create() {
+        var routers = ConnectionManager.shards();
+        if (routers.isEmpty()) {
+            throw new IllegalStateException("No shards configured in db.shard.urls");
+        }
+        return new ShardedSubscriptionDao(routers.stream()
+                .map(SubscriptionDao::new)
+                .toList());
+    }
+
+    @Override
+    public int shardOf(Integer userId) {
+        var hash = userId * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shards.size());
+    }
+
+    @Override
+    public <T> T inTransaction(TransactionOptions options, Supplier<T> work) {
+        if (transactionShard.get() != null) {
+            return work.get();
+        }
+        transactionShard.set(UNBOUND);
+        try {
+            return inShardTransactions(0, options, work);
+        } finally {
+            transactionShard.remove();
+        }
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        if (transactionShard.get() != null) {
+            List<Subscription> subscriptions = new ArrayList<>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                subscriptions.addAll(globalize(shards.get(shard).findAll(), shard));
+            }
+            return subscriptions;
+        }
+        List<CompletableFuture<List<Subscription>>> futures = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            var shardDao = shards.get(shard);
+            var shardIndex = shard;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> globalize(shardDao.findAll(), shardIndex), executor));
+        }
+
+        List<Subscription> subscriptions = new ArrayList<>();
+        try {
+            futures.forEach(future -> subscriptions.addAll(future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        var shard = shardOfId(id);
+        return shards.get(shard).findById(localId(id))
+                .map(subscription -> globalize(subscription, shard));
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        return shard(shardOfId(id)).delete(localId(id));
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        var shard = shardOfId(entity.getId());
+        if (shard != shardOf(entity.getUserId())) {
+            throw new IllegalArgumentException(String.format(
+                    "Subscription %d cannot move to user %d on another shard", entity.getId(), entity.getUserId()));
+        }
+        shard(shard).update(localize(entity));
+        return entity;
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        var shard = shardOf(entity.getUserId());
+        return write(shard, shardDao -> {
+            var local = shardDao.insert(localize(entity));
+            return entity.setId(newGlobalId(local.getId(), shard));
+        });
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        var shard = shardOf(userId);
+        return globalize(shards.get(shard).findByUserId(userId), shard);
+    }
+
+    @Override
+    public Map<Integer, Subscription> findByIds(Collection<Integer> ids) {
+        Map<Integer, Subscription> subscriptions = new HashMap<>();
+        groupBy(ids, this::shardOfId).forEach((shard, shardIds) -> shards.get(shard)
+                .findByIds(shardIds.stream().map(this::localId).toList())
+                .forEach((localId, subscription) ->
+                        subscriptions.put(globalId(localId, shard), globalize(subscription, shard))));
+        return subscriptions;
+    }
+
+    @Override
+    public Map<Integer, List<Subscription>> findByUserIds(Collection<Integer> userIds) {
+        Map<Integer, List<Subscription>> subscriptions = new HashMap<>();
+        groupBy(userIds, this::shardOf).forEach((shard, shardUserIds) -> shards.get(shard)
+                .findByUserIds(shardUserIds)
+                .forEach((userId, userSubscriptions) -> subscriptions.put(userId, globalize(userSubscriptions, shard))));
+        return subscriptions;
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        groupBy(entities, entity -> shardOf(entity.getUserId())).forEach((shard, shardEntities) -> write(shard, shardDao -> {
+            var locals = shardDao.insertAll(shardEntities.stream().map(this::localize).toList());
+            List<Integer> ids = new ArrayList<>(locals.size());
+            for (Subscription local : locals) {
+                ids.add(newGlobalId(local.getId(), shard));
+            }
+            for (int i = 0; i < shardEntities.size(); i++) {
+                shardEntities.get(i).setId(ids.get(i));
+            }
+            return shardEntities;
+        }));
+        return entities;
+    }
+
+    @Override
+    public Subscription upsertByKey(Subscription entity) {
+        var shard = shardOf(entity.getUserId());
+        return write(shard, shardDao -> {
+            var local = shardDao.upsertByKey(localize(entity));
+            return entity.setId(newGlobalId(local.getId(), shard));
+        });
+    }
+
+    @Override
+    public boolean cancelIfActive(Integer id) {
+        return shard(shardOfId(id)).cancelIfActive(localId(id));
+    }
+
+    @Override
+    public boolean expireIfNotExpired(Integer id, Instant expirationDate) {
+        return shard(shardOfId(id)).expireIfNotExpired(localId(id), expirationDate);
+    }
+
+    @Override
+    public boolean expireIfDue(Integer id, Instant instant) {
+        return shard(shardOfId(id)).expireIfDue(localId(id), instant);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T inShardTransactions(int shard, TransactionOptions options, Supplier<T> work) {
+        return shard == shards.size()
+                ? work.get()
+                : shards.get(shard).inTransaction(options, () -> inShardTransactions(shard + 1, options, work));
+    }
+
+    private SubscriptionDao shard(int shard) {
+        var bound = transactionShard.get();
+        if (bound != null && bound != shard) {
+            if (bound != UNBOUND) {
+                throw new IllegalStateException(String.format(
+                        "Transaction on shard %d cannot touch shard %d", bound, shard));
+            }
+            transactionShard.set(shard);
+        }
+        return shards.get(shard);
+    }
+
+    private <T> T write(int shard, Function<SubscriptionDao, T> work) {
+        var shardDao = shard(shard);
+        return shardDao.inTransaction(TransactionOptions.defaults(), () -> work.apply(shardDao));
+    }
+
+    private int shardOfId(Integer id) {
+        return Math.floorMod(id, shards.size());
+    }
+
+    private Integer localId(Integer id) {
+        return Math.floorDiv(id, shards.size());
+    }
+
+    private Integer globalId(Integer localId, int shard) {
+        return localId * shards.size() + shard;
+    }
+
+    private Integer newGlobalId(Integer localId, int shard) {
+        if (localId > (Integer.MAX_VALUE - shard) / shards.size()) {
+            throw new IllegalStateException(String.format(
+                    "Id %d on shard %d is out of the global id range", localId, shard));
+        }
+        return globalId(localId, shard);
+    }
+
+    private Subscription localize(Subscription entity) {
+        return entity.toBuilder()
+                .id(entity.getId() == null ? null : localId(entity.getId()))
+                .build();
+    }
+
+    private Subscription globalize(Subscription subscription, int shard) {
+        return subscription.setId(globalId(subscription.getId(), shard));
+    }
+
+    private List<Subscription> globalize(List<Subscription> subscriptions, int shard) {
+        subscriptions.forEach(subscription -> globalize(subscription, shard));
+        return subscriptions;
+    }
+
+    private static <T> Map<Integer, List<T>> groupBy(Collection<T> values, Function<T, Integer> shardOf) {
+        Map<Integer, List<T>> groups = new HashMap<>();
+        for (T value : values) {
+            groups.computeIfAbsent(shardOf.apply(value), key -> new ArrayList<>()).add(value);
+        }
+        return groups;
+    }
+}
@@ -1,25 +1,60 @@
 package com.dmdev.dao;
 
+import com.dmdev.dto.ExpirationBucket;
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.jfr.DaoStatementEvent;
+import com.dmdev.jfr.Outcome;
+import com.dmdev.metrics.Metrics;
 import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.ConnectionRouter;
+import com.dmdev.util.TransactionManager;
+import com.dmdev.util.TransactionOptions;
 import lombok.SneakyThrows;
+import org.postgresql.PGConnection;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static java.sql.ResultSet.CONCUR_READ_ONLY;
+import static java.sql.ResultSet.TYPE_FORWARD_ONLY;
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
 
-public class SubscriptionDao implements Dao<Integer, Subscription> {
+public class SubscriptionDao implements SubscriptionRepository {
 
     private static final SubscriptionDao INSTANCE = new SubscriptionDao();
 
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int IN_LIST_CHUNK_SIZE = 512;
+    private static final int MAX_EXPIRATION_BUCKETS = 1000;
+    private static final String METRIC_PREFIX = "dao.";
+
     private static final String GET_ALL_SQL = """
             SELECT
                 id,
@@ -32,6 +67,10 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
             """;
     private static final String GET_BY_ID_SQL = GET_ALL_SQL + " WHERE id = ?";
     private static final String GET_BY_USER_ID_SQL = GET_ALL_SQL + " WHERE user_id = ?";
+    private static final String GET_BY_IDS_SQL = GET_ALL_SQL + " WHERE id IN (%s)";
+    private static final String GET_BY_USER_IDS_SQL = GET_ALL_SQL + " WHERE user_id IN (%s)";
+    private static final String POSTGRES_GET_BY_IDS_SQL = GET_ALL_SQL + " WHERE id = ANY(?)";
+    private static final String POSTGRES_GET_BY_USER_IDS_SQL = GET_ALL_SQL + " WHERE user_id = ANY(?)";
     private static final String DELETE_BY_ID_SQL = "DELETE FROM subscription WHERE id = ?";
     private static final String SAVE_SQL =
             "INSERT INTO subscription (user_id, name, provider, expiration_date, status) VALUES (?, ?, ?, ?, ?)";
@@ -44,98 +83,651 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
                 status = ?
             WHERE id = ?
             """;
+    private static final String UPDATE_STATUS_IF_SQL = "UPDATE subscription SET status = ? WHERE id = ? AND status = ?";
+    private static final String EXPIRE_IF_NOT_EXPIRED_SQL =
+            "UPDATE subscription SET status = ?, expiration_date = ? WHERE id = ? AND status <> ?";
+    private static final String EXPIRE_IF_DUE_SQL =
+            "UPDATE subscription SET status = ? WHERE id = ? AND status = ? AND expiration_date <= ?";
+    private static final String COPY_SQL =
+            "COPY subscription (user_id, name, provider, expiration_date, status) FROM STDIN WITH (FORMAT csv)";
+    private static final String EXPIRE_BEFORE_SQL = """
+            UPDATE subscription
+            SET status = ?
+            WHERE id IN (
+                SELECT id
+                FROM subscription
+                WHERE status = ?
+                  AND expiration_date < ?
+                ORDER BY id
+                LIMIT ?
+            )
+            """;
+    private static final String POSTGRES_EXPIRE_BEFORE_SQL = EXPIRE_BEFORE_SQL + "RETURNING id";
+    private static final String H2_EXPIRE_BEFORE_SQL = "SELECT id FROM FINAL TABLE (" + EXPIRE_BEFORE_SQL + ")";
+    private static final String COUNT_BY_STATUS_AND_PROVIDER_SQL = """
+            SELECT status, provider, COUNT(*) AS total
+            FROM subscription
+            WHERE 1 = 1
+            """;
+    private static final String COUNT_BY_EXPIRATION_SQL = """
+            SELECT bucket, COUNT(*) AS total
+            FROM (
+                SELECT FLOOR(CAST(EXTRACT(EPOCH FROM expiration_date) - EXTRACT(EPOCH FROM CAST(? AS TIMESTAMP)) AS DOUBLE PRECISION) / ?) AS bucket
+                FROM subscription
+                WHERE expiration_date >= ?
+                  AND expiration_date < ?%s
+            ) buckets
+            GROUP BY bucket
+            """;
+    private static final String POSTGRES_UPSERT_BY_KEY_SQL = """
+            INSERT INTO subscription (user_id, name, provider, expiration_date, status)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, name) DO UPDATE
+            SET provider = EXCLUDED.provider,
+                expiration_date = EXCLUDED.expiration_date,
+                status = EXCLUDED.status
+            RETURNING id
+            """;
+    private static final String H2_UPSERT_BY_KEY_SQL = """
+            SELECT id FROM FINAL TABLE (
+                MERGE INTO subscription (user_id, name, provider, expiration_date, status)
+                KEY (user_id, name)
+                VALUES (?, ?, ?, ?, ?)
+            )
+            """;
+
+    private final ConnectionRouter router;
+    private volatile Dialect dialect;
+
+    public SubscriptionDao() {
+        this(null);
+    }
+
+    public SubscriptionDao(ConnectionRouter router) {
+        this.router = router;
+    }
 
     public static SubscriptionDao getInstance() {
         return INSTANCE;
     }
 
     @Override
-    @SneakyThrows
+    public <T> T inTransaction(TransactionOptions options, Supplier<T> work) {
+        return router == null
+                ? TransactionManager.inTransaction(options, work)
+                : TransactionManager.inTransaction(router, options, work);
+    }
+
+    @Override
     public List<Subscription> findAll() {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_ALL_SQL)) {
-            var resultSet = preparedStatement.executeQuery();
-            List<Subscription> subscriptions = new ArrayList<>();
-            while (resultSet.next()) {
-                subscriptions.add(buildEntity(resultSet));
+        return execute("findAll", List::size, () -> {
+            try (var connection = openReadConnection();
+                 var preparedStatement = connection.prepareStatement(GET_ALL_SQL)) {
+                var resultSet = preparedStatement.executeQuery();
+                List<Subscription> subscriptions = new ArrayList<>();
+                while (resultSet.next()) {
+                    subscriptions.add(buildEntity(resultSet));
+                }
+
+                return subscriptions;
             }
+        });
+    }
 
-            return subscriptions;
-        }
+    public Stream<Subscription> streamAll() {
+        return streamAll(DEFAULT_FETCH_SIZE);
+    }
+
+    public Stream<Subscription> streamAll(int fetchSize) {
+        return streamAll(SubscriptionFilter.empty(), fetchSize);
+    }
+
+    public Stream<Subscription> streamAll(SubscriptionFilter filter, int fetchSize) {
+        List<Object> parameters = new ArrayList<>();
+        var sql = new StringBuilder(GET_ALL_SQL).append(" WHERE 1 = 1");
+        appendFilter(sql, parameters, filter);
+
+        return execute("streamAll", () -> {
+            var connection = openReadConnection();
+            try {
+                connection.setAutoCommit(false);
+                var preparedStatement = connection.prepareStatement(sql.toString(), TYPE_FORWARD_ONLY, CONCUR_READ_ONLY);
+                preparedStatement.setFetchSize(fetchSize);
+                for (int i = 0; i < parameters.size(); i++) {
+                    preparedStatement.setObject(i + 1, parameters.get(i));
+                }
+                var resultSet = preparedStatement.executeQuery();
+
+                return StreamSupport.stream(new ResultSetSpliterator(resultSet), false)
+                        .onClose(() -> close(connection, preparedStatement));
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        });
     }
 
     @Override
-    @SneakyThrows
     public Optional<Subscription> findById(Integer id) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_BY_ID_SQL)) {
-            preparedStatement.setObject(1, id);
+        return execute("findById", subscription -> subscription.isPresent() ? 1 : 0, () -> {
+            try (var connection = openReadConnection();
+                 var preparedStatement = connection.prepareStatement(GET_BY_ID_SQL)) {
+                preparedStatement.setObject(1, id);
 
-            var resultSet = preparedStatement.executeQuery();
-            return resultSet.next()
-                    ? Optional.of(buildEntity(resultSet))
-                    : Optional.empty();
-        }
+                var resultSet = preparedStatement.executeQuery();
+                return resultSet.next()
+                        ? Optional.of(buildEntity(resultSet))
+                        : Optional.empty();
+            }
+        });
     }
 
     @Override
-    @SneakyThrows
     public boolean delete(Integer id) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(DELETE_BY_ID_SQL)) {
-            preparedStatement.setObject(1, id);
+        return execute("delete", () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(DELETE_BY_ID_SQL)) {
+                preparedStatement.setObject(1, id);
 
-            return preparedStatement.executeUpdate() > 0;
-        }
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
     }
 
     @Override
-    @SneakyThrows
     public Subscription update(Subscription entity) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL)) {
-            prepareStatementToUpsert(preparedStatement, entity);
-            preparedStatement.setObject(6, entity.getId());
+        return execute("update", entity.getUserId(), null, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL)) {
+                prepareStatementToUpsert(preparedStatement, entity);
+                preparedStatement.setObject(6, entity.getId());
 
-            preparedStatement.executeUpdate();
-            return entity;
-        }
+                preparedStatement.executeUpdate();
+                return entity;
+            }
+        });
     }
 
     @Override
-    @SneakyThrows
     public Subscription insert(Subscription entity) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS)) {
-            prepareStatementToUpsert(preparedStatement, entity);
+        return execute("insert", entity.getUserId(), null, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS)) {
+                prepareStatementToUpsert(preparedStatement, entity);
 
-            preparedStatement.executeUpdate();
+                preparedStatement.executeUpdate();
 
-            var generatedKeys = preparedStatement.getGeneratedKeys();
-            generatedKeys.next();
-            entity.setId(generatedKeys.getObject("id", Integer.class));
+                var generatedKeys = preparedStatement.getGeneratedKeys();
+                generatedKeys.next();
+                entity.setId(generatedKeys.getObject("id", Integer.class));
 
-            return entity;
+                return entity;
+            }
+        });
+    }
+
+    public Page<Subscription> findPage(Integer afterId, int limit) {
+        return findPage(afterId, limit, SubscriptionFilter.empty());
+    }
+
+    public Page<Subscription> findPage(Integer afterId, int limit, SubscriptionFilter filter) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
         }
+        List<Object> parameters = new ArrayList<>();
+        var sql = new StringBuilder(GET_ALL_SQL).append(" WHERE 1 = 1");
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            parameters.add(afterId);
+        }
+        appendFilter(sql, parameters, filter);
+        sql.append(" ORDER BY id LIMIT ?");
+        parameters.add(limit + 1);
+
+        return execute("findPage", page -> page.getContent().size(), () -> {
+            try (var connection = openReadConnection();
+                 var preparedStatement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    preparedStatement.setObject(i + 1, parameters.get(i));
+                }
+
+                var resultSet = preparedStatement.executeQuery();
+                List<Subscription> subscriptions = new ArrayList<>(limit);
+                while (subscriptions.size() < limit && resultSet.next()) {
+                    subscriptions.add(buildEntity(resultSet));
+                }
+
+                var nextCursor = resultSet.next()
+                        ? subscriptions.get(subscriptions.size() - 1).getId()
+                        : null;
+                return new Page<>(subscriptions, nextCursor);
+            }
+        });
     }
 
-    @SneakyThrows
+    @Override
+    public Subscription upsertByKey(Subscription entity) {
+        return execute("upsertByKey", entity.getUserId(), null, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(upsertByKeySql(connection))) {
+                prepareStatementToUpsert(preparedStatement, entity);
+
+                var resultSet = preparedStatement.executeQuery();
+                resultSet.next();
+                entity.setId(resultSet.getObject("id", Integer.class));
+
+                return entity;
+            }
+        });
+    }
+
+    @Override
+    public boolean cancelIfActive(Integer id) {
+        return execute("cancelIfActive", updated -> updated ? 1 : 0, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(UPDATE_STATUS_IF_SQL)) {
+                preparedStatement.setObject(1, Status.CANCELED.name());
+                preparedStatement.setObject(2, id);
+                preparedStatement.setObject(3, Status.ACTIVE.name());
+
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
+    }
+
+    @Override
+    public boolean expireIfNotExpired(Integer id, Instant expirationDate) {
+        return execute("expireIfNotExpired", updated -> updated ? 1 : 0, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(EXPIRE_IF_NOT_EXPIRED_SQL)) {
+                preparedStatement.setObject(1, Status.EXPIRED.name());
+                preparedStatement.setObject(2, Timestamp.from(expirationDate));
+                preparedStatement.setObject(3, id);
+                preparedStatement.setObject(4, Status.EXPIRED.name());
+
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
+    }
+
+    @Override
+    public boolean expireIfDue(Integer id, Instant instant) {
+        return execute("expireIfDue", updated -> updated ? 1 : 0, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(EXPIRE_IF_DUE_SQL)) {
+                preparedStatement.setObject(1, Status.EXPIRED.name());
+                preparedStatement.setObject(2, id);
+                preparedStatement.setObject(3, Status.ACTIVE.name());
+                preparedStatement.setObject(4, Timestamp.from(instant));
+
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
+    }
+
+    public int expireBefore(Instant instant, int limit) {
+        return expireIdsBefore(instant, limit).size();
+    }
+
+    public List<Integer> expireIdsBefore(Instant instant, int limit) {
+        return execute("expireBefore", List::size, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(expireBeforeSql(connection))) {
+                preparedStatement.setObject(1, Status.EXPIRED.name());
+                preparedStatement.setObject(2, Status.ACTIVE.name());
+                preparedStatement.setObject(3, Timestamp.from(instant));
+                preparedStatement.setObject(4, limit);
+
+                var resultSet = preparedStatement.executeQuery();
+                List<Integer> ids = new ArrayList<>(limit);
+                while (resultSet.next()) {
+                    ids.add(resultSet.getInt("id"));
+                }
+                return ids;
+            }
+        });
+    }
+
+    @Override
     public List<Subscription> findByUserId(Integer userId) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_BY_USER_ID_SQL)) {
-            preparedStatement.setObject(1, userId);
+        return execute("findByUserId", userId, List::size, () -> {
+            try (var connection = openReadConnection();
+                 var preparedStatement = connection.prepareStatement(GET_BY_USER_ID_SQL)) {
+                preparedStatement.setObject(1, userId);
+
+                var resultSet = preparedStatement.executeQuery();
+                List<Subscription> subscriptions = new ArrayList<>();
+                while (resultSet.next()) {
+                    subscriptions.add(buildEntity(resultSet));
+                }
+
+                return subscriptions;
+            }
+        });
+    }
+
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        List<Object> parameters = new ArrayList<>();
+        var sql = new StringBuilder(COUNT_BY_STATUS_AND_PROVIDER_SQL);
+        appendFilter(sql, parameters, filter);
+        sql.append(" GROUP BY status, provider");
+
+        return execute("countByStatusAndProvider", List::size, () -> {
+            try (var connection = openReadConnection();
+                 var preparedStatement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    preparedStatement.setObject(i + 1, parameters.get(i));
+                }
+
+                var resultSet = preparedStatement.executeQuery();
+                List<SubscriptionCount> counts = new ArrayList<>();
+                while (resultSet.next()) {
+                    counts.add(new SubscriptionCount(
+                            Status.valueOf(resultSet.getString("status")),
+                            Provider.valueOf(resultSet.getString("provider")),
+                            resultSet.getLong("total")));
+                }
+                return counts;
+            }
+        });
+    }
+
+    public List<ExpirationBucket> countByExpiration(SubscriptionFilter filter, Instant from, Duration bucketSize, int buckets) {
+        if (buckets < 1 || buckets > MAX_EXPIRATION_BUCKETS) {
+            throw new IllegalArgumentException("Bucket count must be between 1 and " + MAX_EXPIRATION_BUCKETS + ": " + buckets);
+        }
+        if (bucketSize.isNegative() || bucketSize.isZero()) {
+            throw new IllegalArgumentException("Bucket size must be positive: " + bucketSize);
+        }
+        List<Instant> bounds = new ArrayList<>(buckets + 1);
+        for (int i = 0; i <= buckets; i++) {
+            bounds.add(from.plus(bucketSize.multipliedBy(i)));
+        }
 
-            var resultSet = preparedStatement.executeQuery();
-            List<Subscription> subscriptions = new ArrayList<>();
-            while (resultSet.next()) {
-                subscriptions.add(buildEntity(resultSet));
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(Timestamp.from(from));
+        parameters.add(bucketSize.getSeconds() + bucketSize.getNano() / 1e9);
+        parameters.add(Timestamp.from(from));
+        parameters.add(Timestamp.from(bounds.get(buckets)));
+        var conditions = new StringBuilder();
+        appendFilter(conditions, parameters, filter);
+        var sql = String.format(COUNT_BY_EXPIRATION_SQL, conditions);
+
+        return execute("countByExpiration", List::size, () -> {
+            try (var connection = openReadConnection();
+                 var preparedStatement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    preparedStatement.setObject(i + 1, parameters.get(i));
+                }
+
+                var counts = new long[buckets];
+                var resultSet = preparedStatement.executeQuery();
+                while (resultSet.next()) {
+                    var bucket = Math.min(Math.max(resultSet.getInt("bucket"), 0), buckets - 1);
+                    counts[bucket] += resultSet.getLong("total");
+                }
+                List<ExpirationBucket> result = new ArrayList<>(buckets);
+                for (int i = 0; i < buckets; i++) {
+                    result.add(new ExpirationBucket(bounds.get(i), bounds.get(i + 1), counts[i]));
+                }
+                return result;
+            }
+        });
+    }
+
+    @Override
+    public Map<Integer, Subscription> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return execute("findByIds", Map::size, () -> {
+            Map<Integer, Subscription> subscriptions = new HashMap<>();
+            try (var connection = openReadConnection()) {
+                findAllIn(connection, ids, POSTGRES_GET_BY_IDS_SQL, GET_BY_IDS_SQL,
+                        subscription -> subscriptions.put(subscription.getId(), subscription));
             }
+            return subscriptions;
+        });
+    }
 
+    @Override
+    public Map<Integer, List<Subscription>> findByUserIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return execute("findByUserIds", SubscriptionDao::countRows, () -> {
+            Map<Integer, List<Subscription>> subscriptions = new HashMap<>();
+            try (var connection = openReadConnection()) {
+                findAllIn(connection, userIds, POSTGRES_GET_BY_USER_IDS_SQL, GET_BY_USER_IDS_SQL,
+                        subscription -> subscriptions.computeIfAbsent(subscription.getUserId(), key -> new ArrayList<>())
+                                .add(subscription));
+            }
             return subscriptions;
+        });
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        return execute("insertAll", List::size, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS)) {
+                for (Subscription entity : entities) {
+                    prepareStatementToUpsert(preparedStatement, entity);
+                    preparedStatement.addBatch();
+                }
+
+                preparedStatement.executeBatch();
+
+                var generatedKeys = preparedStatement.getGeneratedKeys();
+                for (Subscription entity : entities) {
+                    generatedKeys.next();
+                    entity.setId(generatedKeys.getObject("id", Integer.class));
+                }
+
+                return entities;
+            }
+        });
+    }
+
+    public int bulkInsert(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        return execute("bulkInsert", Integer::intValue, () -> {
+            try (var connection = openConnection()) {
+                if (dialect(connection) == Dialect.POSTGRES) {
+                    return (int) connection.unwrap(PGConnection.class).getCopyAPI()
+                            .copyIn(COPY_SQL, new StringReader(toCsv(entities)));
+                }
+                try (var preparedStatement = connection.prepareStatement(SAVE_SQL)) {
+                    for (Subscription entity : entities) {
+                        prepareStatementToUpsert(preparedStatement, entity);
+                        preparedStatement.addBatch();
+                    }
+                    preparedStatement.executeBatch();
+                    return entities.size();
+                }
+            } catch (IOException e) {
+                throw new SQLException("COPY into subscription failed", e);
+            }
+        });
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        return execute("updateAll", List::size, () -> {
+            try (var connection = openConnection();
+                 var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL)) {
+                for (Subscription entity : entities) {
+                    prepareStatementToUpsert(preparedStatement, entity);
+                    preparedStatement.setObject(6, entity.getId());
+                    preparedStatement.addBatch();
+                }
+
+                preparedStatement.executeBatch();
+                return entities;
+            }
+        });
+    }
+
+    private <T> T execute(String operation, SqlCallable<T> action) {
+        return execute(operation, null, null, action);
+    }
+
+    private <T> T execute(String operation, ToIntFunction<? super T> rowCounter, SqlCallable<T> action) {
+        return execute(operation, null, rowCounter, action);
+    }
+
+    @SneakyThrows
+    private <T> T execute(String operation, Integer userId, ToIntFunction<? super T> rowCounter, SqlCallable<T> action) {
+        var metrics = Metrics.registry();
+        var name = METRIC_PREFIX + operation;
+        var event = new DaoStatementEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var rowCount = -1;
+        Throwable failure = null;
+        try {
+            T result = action.call();
+            if (rowCounter != null) {
+                rowCount = rowCounter.applyAsInt(result);
+                metrics.recordValue(name + ".rows", rowCount);
+            }
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+            metrics.recordError(name);
+            throw e;
+        } finally {
+            metrics.recordLatency(name, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.sqlId = operation;
+                event.rowCount = rowCount;
+                event.userId = userId == null ? 0 : userId;
+                event.outcome = Outcome.of(failure);
+                event.commit();
+            }
+        }
+    }
+
+    private static int countRows(Map<Integer, List<Subscription>> subscriptions) {
+        return subscriptions.values().stream()
+                .mapToInt(List::size)
+                .sum();
+    }
+
+    private static void appendFilter(StringBuilder sql, List<Object> parameters, SubscriptionFilter filter) {
+        if (filter.getStatus() != null) {
+            sql.append(" AND status = ?");
+            parameters.add(filter.getStatus().name());
+        }
+        if (filter.getProvider() != null) {
+            sql.append(" AND provider = ?");
+            parameters.add(filter.getProvider().name());
         }
+        if (filter.getExpiresFrom() != null) {
+            sql.append(" AND expiration_date >= ?");
+            parameters.add(Timestamp.from(filter.getExpiresFrom()));
+        }
+        if (filter.getExpiresBefore() != null) {
+            sql.append(" AND expiration_date < ?");
+            parameters.add(Timestamp.from(filter.getExpiresBefore()));
+        }
+    }
+
+    private void findAllIn(Connection connection, Collection<Integer> keys, String arraySql, String inListSql,
+                           Consumer<Subscription> action) throws SQLException {
+        if (dialect(connection) == Dialect.POSTGRES) {
+            try (var preparedStatement = connection.prepareStatement(arraySql)) {
+                preparedStatement.setArray(1, connection.createArrayOf("integer", keys.toArray()));
+                readAll(preparedStatement, action);
+            }
+            return;
+        }
+
+        var distinctKeys = List.copyOf(new LinkedHashSet<>(keys));
+        for (int from = 0; from < distinctKeys.size(); from += IN_LIST_CHUNK_SIZE) {
+            var chunk = distinctKeys.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, distinctKeys.size()));
+            var parameterCount = chunk.size() == 1 ? 1 : Integer.highestOneBit(chunk.size() - 1) << 1;
+            var sql = String.format(inListSql, String.join(", ", Collections.nCopies(parameterCount, "?")));
+            try (var preparedStatement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameterCount; i++) {
+                    preparedStatement.setObject(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                readAll(preparedStatement, action);
+            }
+        }
+    }
+
+    private static String toCsv(List<Subscription> entities) {
+        var csv = new StringBuilder(entities.size() * 64);
+        for (Subscription entity : entities) {
+            csv.append(entity.getUserId()).append(',');
+            appendCsvValue(csv, entity.getName()).append(',')
+                    .append(entity.getProvider().name()).append(',')
+                    .append(Timestamp.from(entity.getExpirationDate())).append(',')
+                    .append(entity.getStatus().name()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static StringBuilder appendCsvValue(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private void readAll(PreparedStatement preparedStatement, Consumer<Subscription> action) throws SQLException {
+        var resultSet = preparedStatement.executeQuery();
+        while (resultSet.next()) {
+            action.accept(buildEntity(resultSet));
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        if (router == null) {
+            return ConnectionManager.get();
+        }
+        var transactionConnection = TransactionManager.current(router);
+        return transactionConnection != null ? transactionConnection : router.write();
+    }
+
+    private Connection openReadConnection() throws SQLException {
+        if (router == null) {
+            return ConnectionManager.getForRead();
+        }
+        var transactionConnection = TransactionManager.current(router);
+        return transactionConnection != null ? transactionConnection : router.read();
     }
 
-    private Subscription buildEntity(ResultSet resultSet) throws SQLException {
+    private String expireBeforeSql(Connection connection) throws SQLException {
+        return switch (dialect(connection)) {
+            case POSTGRES -> POSTGRES_EXPIRE_BEFORE_SQL;
+            case H2 -> H2_EXPIRE_BEFORE_SQL;
+        };
+    }
+
+    private String upsertByKeySql(Connection connection) throws SQLException {
+        return switch (dialect(connection)) {
+            case POSTGRES -> POSTGRES_UPSERT_BY_KEY_SQL;
+            case H2 -> H2_UPSERT_BY_KEY_SQL;
+        };
+    }
+
+    private Dialect dialect(Connection connection) throws SQLException {
+        var result = dialect;
+        if (result == null) {
+            dialect = result = Dialect.of(connection);
+        }
+        return result;
+    }
+
+    Subscription buildEntity(ResultSet resultSet) throws SQLException {
         return Subscription.builder()
                 .id(resultSet.getObject("id", Integer.class))
                 .userId(resultSet.getObject("user_id", Integer.class))
@@ -146,6 +738,12 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
                 .build();
     }
 
+    @SneakyThrows
+    private static void close(Connection connection, PreparedStatement preparedStatement) {
+        try (connection; preparedStatement) {
+        }
+    }
+
     private void prepareStatementToUpsert(PreparedStatement preparedStatement, Subscription entity) throws SQLException {
         preparedStatement.setObject(1, entity.getUserId());
         preparedStatement.setObject(2, entity.getName());
@@ -153,4 +751,30 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
         preparedStatement.setObject(4, Timestamp.from(entity.getExpirationDate()));
         preparedStatement.setObject(5, entity.getStatus().name());
     }
+
+    @FunctionalInterface
+    private interface SqlCallable<T> {
+
+        T call() throws SQLException;
+    }
+
+    private class ResultSetSpliterator extends Spliterators.AbstractSpliterator<Subscription> {
+
+        private final ResultSet resultSet;
+
+        private ResultSetSpliterator(ResultSet resultSet) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        @SneakyThrows
+        public boolean tryAdvance(Consumer<? super Subscription> action) {
+            if (!resultSet.next()) {
+                return false;
+            }
+            action.accept(buildEntity(resultSet));
+            return true;
+        }
+    }
 }
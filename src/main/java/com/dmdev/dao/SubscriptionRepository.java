@@ -0,0 +1,86 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.TransactionOptions;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public interface SubscriptionRepository extends Dao<Integer, Subscription> {
+
+    List<Subscription> findByUserId(Integer userId);
+
+    default <T> T inTransaction(TransactionOptions options, Supplier<T> work) {
+        return work.get();
+    }
+
+    default int shardOf(Integer userId) {
+        return 0;
+    }
+
+    default Map<Integer, Subscription> findByIds(Collection<Integer> ids) {
+        Map<Integer, Subscription> subscriptions = new HashMap<>();
+        for (Integer id : ids) {
+            findById(id).ifPresent(subscription -> subscriptions.put(id, subscription));
+        }
+        return subscriptions;
+    }
+
+    default Map<Integer, List<Subscription>> findByUserIds(Collection<Integer> userIds) {
+        Map<Integer, List<Subscription>> subscriptions = new HashMap<>();
+        for (Integer userId : userIds) {
+            var userSubscriptions = findByUserId(userId);
+            if (!userSubscriptions.isEmpty()) {
+                subscriptions.put(userId, userSubscriptions);
+            }
+        }
+        return subscriptions;
+    }
+
+    default List<Subscription> insertAll(List<Subscription> entities) {
+        entities.forEach(this::insert);
+        return entities;
+    }
+
+    default List<Subscription> updateAll(List<Subscription> entities) {
+        entities.forEach(this::update);
+        return entities;
+    }
+
+    default Subscription upsertByKey(Subscription entity) {
+        findByUserId(entity.getUserId()).stream()
+                .filter(existingSubscription -> existingSubscription.getName().equals(entity.getName()))
+                .findFirst()
+                .ifPresent(existingSubscription -> entity.setId(existingSubscription.getId()));
+        return upsert(entity);
+    }
+
+    default boolean cancelIfActive(Integer id) {
+        return findById(id)
+                .filter(subscription -> subscription.getStatus() == Status.ACTIVE)
+                .map(subscription -> update(subscription.setStatus(Status.CANCELED)))
+                .isPresent();
+    }
+
+    default boolean expireIfNotExpired(Integer id, Instant expirationDate) {
+        return findById(id)
+                .filter(subscription -> subscription.getStatus() != Status.EXPIRED)
+                .map(subscription -> update(subscription
+                        .setStatus(Status.EXPIRED)
+                        .setExpirationDate(expirationDate)))
+                .isPresent();
+    }
+
+    default boolean expireIfDue(Integer id, Instant instant) {
+        return findById(id)
+                .filter(subscription -> subscription.getStatus() == Status.ACTIVE)
+                .filter(subscription -> !subscription.getExpirationDate().isAfter(instant))
+                .map(subscription -> update(subscription.setStatus(Status.EXPIRED)))
+                .isPresent();
+    }
+}
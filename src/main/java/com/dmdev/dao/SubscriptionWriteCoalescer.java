@@ -0,0 +1,194 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.metrics.Metrics;
+import com.dmdev.service.SubscriptionListener;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.TransactionOptions;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.System.Logger.Level.DEBUG;
+import static java.lang.System.Logger.Level.WARNING;
+
+public class SubscriptionWriteCoalescer implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(SubscriptionWriteCoalescer.class.getName());
+
+    private static final String MAX_BATCH_SIZE_KEY = "dao.write-coalescer.max-batch-size";
+    private static final String LINGER_KEY = "dao.write-coalescer.linger-us";
+    private static final String BATCH_SIZE_METRIC = "dao.coalescer.batch.size";
+    private static final String FALLBACK_METRIC = "dao.coalescer.fallback";
+    private static final Write SHUTDOWN = new Write(null, false, null);
+
+    private final SubscriptionRepository subscriptionDao;
+    private final SubscriptionListener listener;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    public SubscriptionWriteCoalescer(SubscriptionRepository subscriptionDao, int maxBatchSize, Duration linger) {
+        this(subscriptionDao, maxBatchSize, linger, SubscriptionListener.NONE);
+    }
+
+    public SubscriptionWriteCoalescer(SubscriptionRepository subscriptionDao, int maxBatchSize, Duration linger,
+                                      SubscriptionListener listener) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        if (linger.isNegative()) {
+            throw new IllegalArgumentException("Linger must not be negative: " + linger);
+        }
+        this.subscriptionDao = subscriptionDao;
+        this.listener = listener;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.flusher = new Thread(this::run, "subscription-write-coalescer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public static SubscriptionWriteCoalescer create(SubscriptionRepository subscriptionDao) {
+        return create(subscriptionDao, SubscriptionListener.NONE);
+    }
+
+    public static SubscriptionWriteCoalescer create(SubscriptionRepository subscriptionDao, SubscriptionListener listener) {
+        return new SubscriptionWriteCoalescer(
+                subscriptionDao,
+                Integer.parseInt(PropertiesUtil.get(MAX_BATCH_SIZE_KEY, "500")),
+                Duration.of(Long.parseLong(PropertiesUtil.get(LINGER_KEY, "500")), ChronoUnit.MICROS),
+                listener);
+    }
+
+    public CompletableFuture<Subscription> insert(Subscription entity) {
+        return submit(entity, false);
+    }
+
+    public CompletableFuture<Subscription> update(Subscription entity) {
+        return submit(entity, true);
+    }
+
+    public CompletableFuture<Subscription> upsert(Subscription entity) {
+        return submit(entity, entity.getId() != null);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.add(SHUTDOWN);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Write> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.remove(SHUTDOWN);
+        for (int from = 0; from < remaining.size(); from += maxBatchSize) {
+            flush(remaining.subList(from, Math.min(from + maxBatchSize, remaining.size())));
+        }
+    }
+
+    private CompletableFuture<Subscription> submit(Subscription entity, boolean update) {
+        var write = new Write(entity, update, new CompletableFuture<>());
+        if (closed) {
+            return reject(write);
+        }
+        queue.add(write);
+        if (closed && queue.remove(write)) {
+            return reject(write);
+        }
+        return write.future();
+    }
+
+    private static CompletableFuture<Subscription> reject(Write write) {
+        write.future().completeExceptionally(new RejectedExecutionException("Write coalescer is closed"));
+        return write.future();
+    }
+
+    private void run() {
+        List<Write> batch = new ArrayList<>(maxBatchSize);
+        var running = true;
+        while (running) {
+            try {
+                var write = queue.take();
+                var deadline = System.nanoTime() + lingerNanos;
+                while (write != null && write != SHUTDOWN) {
+                    batch.add(write);
+                    if (batch.size() == maxBatchSize) {
+                        break;
+                    }
+                    var remaining = deadline - System.nanoTime();
+                    write = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                }
+                running = write != SHUTDOWN;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Write> batch) {
+        Metrics.registry().recordValue(BATCH_SIZE_METRIC, batch.size());
+        List<Subscription> inserts = new ArrayList<>();
+        List<Subscription> updates = new ArrayList<>();
+        for (Write write : batch) {
+            (write.update() ? updates : inserts).add(write.entity());
+        }
+        try {
+            subscriptionDao.inTransaction(TransactionOptions.defaults(), () -> {
+                subscriptionDao.insertAll(inserts);
+                return subscriptionDao.updateAll(updates);
+            });
+            batch.forEach(write -> complete(write, write.entity()));
+        } catch (Exception e) {
+            log.log(DEBUG, "Batch of " + batch.size() + " writes failed, retrying them one by one", e);
+            Metrics.registry().recordError(FALLBACK_METRIC);
+            batch.forEach(this::writeIndividually);
+        } catch (Throwable e) {
+            log.log(WARNING, "Batch of " + batch.size() + " writes failed", e);
+            Metrics.registry().recordError(FALLBACK_METRIC);
+            batch.forEach(write -> write.future().completeExceptionally(e));
+        }
+    }
+
+    private void writeIndividually(Write write) {
+        try {
+            var entity = write.update()
+                    ? subscriptionDao.update(write.entity())
+                    : subscriptionDao.insert(write.entity().setId(null));
+            complete(write, entity);
+        } catch (Throwable e) {
+            write.future().completeExceptionally(e);
+        }
+    }
+
+    private void complete(Write write, Subscription entity) {
+        try {
+            listener.onUpserted(entity);
+        } catch (RuntimeException e) {
+            log.log(WARNING, "Subscription listener " + listener + " failed", e);
+        }
+        write.future().complete(entity);
+    }
+
+    private record Write(Subscription entity, boolean update, CompletableFuture<Subscription> future) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.dmdev.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class ExpirationBucket {
+    Instant from;
+    Instant to;
+    long count;
+}
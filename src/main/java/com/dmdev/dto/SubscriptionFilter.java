@@ -0,0 +1,24 @@
+package com.dmdev.dto;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+@Builder
+public class SubscriptionFilter {
+
+    private static final SubscriptionFilter EMPTY = SubscriptionFilter.builder().build();
+
+    Status status;
+    Provider provider;
+    Instant expiresFrom;
+    Instant expiresBefore;
+
+    public static SubscriptionFilter empty() {
+        return EMPTY;
+    }
+}
@@ -0,0 +1,26 @@
+package com.dmdev.dto;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.validator.Error;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class UpsertResult {
+    CreateSubscriptionDto dto;
+    Subscription subscription;
+    List<Error> errors;
+
+    public static UpsertResult success(CreateSubscriptionDto dto, Subscription subscription) {
+        return new UpsertResult(dto, subscription, List.of());
+    }
+
+    public static UpsertResult failure(CreateSubscriptionDto dto, List<Error> errors) {
+        return new UpsertResult(dto, null, errors);
+    }
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,6 @@
+package com.dmdev.exporter;
+
+public enum ExportFormat {
+    CSV,
+    NDJSON
+}
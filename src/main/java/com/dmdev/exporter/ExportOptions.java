@@ -0,0 +1,18 @@
+package com.dmdev.exporter;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class ExportOptions {
+    @Builder.Default
+    int fetchSize = 1000;
+    @Builder.Default
+    int bufferSize = 64 * 1024;
+    boolean gzip;
+
+    public static ExportOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.dmdev.exporter;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Subscription;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+public class SubscriptionExporter {
+
+    private static final String CSV_HEADER = "id,user_id,name,provider,expiration_date,status\n";
+    private static final int MIN_BUFFER_SIZE = 16;
+
+    private final SubscriptionDao subscriptionDao;
+    private final ExportOptions options;
+
+    public SubscriptionExporter(SubscriptionDao subscriptionDao, ExportOptions options) {
+        if (options.getFetchSize() < 1) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + options.getFetchSize());
+        }
+        if (options.getBufferSize() < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + ": " + options.getBufferSize());
+        }
+        this.subscriptionDao = subscriptionDao;
+        this.options = options;
+    }
+
+    public long exportFile(Path file, ExportFormat format, SubscriptionFilter filter) {
+        try (var channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            return export(channel, format, filter);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long export(WritableByteChannel channel, ExportFormat format, SubscriptionFilter filter) {
+        try {
+            if (!options.isGzip()) {
+                return write(channel, format, filter);
+            }
+            var gzip = new GZIPOutputStream(Channels.newOutputStream(channel), options.getBufferSize());
+            var rows = write(Channels.newChannel(gzip), format, filter);
+            gzip.finish();
+            gzip.flush();
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long write(WritableByteChannel channel, ExportFormat format, SubscriptionFilter filter) throws IOException {
+        var writer = new RowWriter(channel, options.getBufferSize());
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        long rows = 0;
+        try (var subscriptions = subscriptionDao.streamAll(filter, options.getFetchSize())) {
+            var iterator = subscriptions.iterator();
+            while (iterator.hasNext()) {
+                var subscription = iterator.next();
+                switch (format) {
+                    case CSV -> writer.writeCsv(subscription);
+                    case NDJSON -> writer.writeJson(subscription);
+                }
+                rows++;
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static class RowWriter {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer bytes;
+        private final CharsetEncoder encoder = UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder row = new StringBuilder(256);
+
+        private RowWriter(WritableByteChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        private void writeCsv(Subscription subscription) throws IOException {
+            row.setLength(0);
+            row.append(subscription.getId()).append(',')
+                    .append(subscription.getUserId()).append(",\"");
+            var name = subscription.getName();
+            for (int i = 0; i < name.length(); i++) {
+                var character = name.charAt(i);
+                if (character == '"') {
+                    row.append('"');
+                }
+                row.append(character);
+            }
+            row.append("\",").append(subscription.getProvider().name()).append(',')
+                    .append(subscription.getExpirationDate()).append(',')
+                    .append(subscription.getStatus().name()).append('\n');
+            write(row);
+        }
+
+        private void writeJson(Subscription subscription) throws IOException {
+            row.setLength(0);
+            row.append("{\"id\":").append(subscription.getId())
+                    .append(",\"userId\":").append(subscription.getUserId())
+                    .append(",\"name\":\"");
+            var name = subscription.getName();
+            for (int i = 0; i < name.length(); i++) {
+                var character = name.charAt(i);
+                switch (character) {
+                    case '"' -> row.append("\\\"");
+                    case '\\' -> row.append("\\\\");
+                    case '\n' -> row.append("\\n");
+                    case '\r' -> row.append("\\r");
+                    case '\t' -> row.append("\\t");
+                    default -> {
+                        if (character < 0x20) {
+                            row.append(String.format("\\u%04x", (int) character));
+                        } else {
+                            row.append(character);
+                        }
+                    }
+                }
+            }
+            row.append("\",\"provider\":\"").append(subscription.getProvider().name())
+                    .append("\",\"expirationDate\":\"").append(subscription.getExpirationDate())
+                    .append("\",\"status\":\"").append(subscription.getStatus().name())
+                    .append("\"}\n");
+            write(row);
+        }
+
+        private void write(CharSequence text) throws IOException {
+            var chars = CharBuffer.wrap(text);
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                drain();
+            }
+            encoder.reset();
+        }
+
+        private void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+}
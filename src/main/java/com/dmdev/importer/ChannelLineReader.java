@@ -0,0 +1,75 @@
+package com.dmdev.importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+class ChannelLineReader implements AutoCloseable {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder();
+    private boolean endOfInput;
+
+    ChannelLineReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.chars.flip();
+    }
+
+    String readLine() throws IOException {
+        while (true) {
+            while (chars.hasRemaining()) {
+                var character = chars.get();
+                if (character == '\n') {
+                    return takeLine();
+                }
+                line.append(character);
+            }
+            if (endOfInput) {
+                return line.length() > 0 ? takeLine() : null;
+            }
+            fill();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void fill() throws IOException {
+        chars.clear();
+        var read = channel.read(bytes);
+        bytes.flip();
+        if (read < 0) {
+            endOfInput = true;
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+        } else {
+            decoder.decode(bytes, chars, false);
+        }
+        bytes.compact();
+        chars.flip();
+    }
+
+    private String takeLine() {
+        var length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        var result = line.toString();
+        line.setLength(0);
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.dmdev.importer;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+class CsvRecordParser implements RecordParser {
+
+    private static final String HEADER = "user_id,name,provider,expiration_date";
+    private static final int COLUMNS = 4;
+
+    @Override
+    public CreateSubscriptionDto parse(String line) {
+        var fields = split(line);
+        if (fields.size() != COLUMNS) {
+            throw new IllegalArgumentException("Expected " + COLUMNS + " columns but found " + fields.size());
+        }
+        return CreateSubscriptionDto.builder()
+                .userId(fields.get(0).isBlank() ? null : Integer.valueOf(fields.get(0).trim()))
+                .name(fields.get(1))
+                .provider(fields.get(2).trim())
+                .expirationDate(fields.get(3).isBlank() ? null : Instant.parse(fields.get(3).trim()))
+                .build();
+    }
+
+    @Override
+    public boolean isHeader(String line) {
+        return line.replace(" ", "").equalsIgnoreCase(HEADER);
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        var field = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var character = line.charAt(i);
+            if (quoted) {
+                if (character != '"') {
+                    field.append(character);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (character == '"') {
+                quoted = true;
+            } else if (character == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(character);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,19 @@
+package com.dmdev.importer;
+
+import java.nio.file.Path;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public static ImportFormat of(Path file) {
+        var fileName = file.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".csv")) {
+            return CSV;
+        }
+        if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import file: " + file);
+    }
+}
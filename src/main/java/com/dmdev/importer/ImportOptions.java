@@ -0,0 +1,27 @@
+package com.dmdev.importer;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Value
+@Builder
+public class ImportOptions {
+    @Builder.Default
+    int batchSize = 1000;
+    @Builder.Default
+    int queueCapacity = 8;
+    @Builder.Default
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    @Builder.Default
+    int readBufferSize = 64 * 1024;
+    @Builder.Default
+    Duration progressInterval = Duration.ofSeconds(5);
+    Path rejectFile;
+
+    public static ImportOptions defaults() {
+        return builder().build();
+    }
+}
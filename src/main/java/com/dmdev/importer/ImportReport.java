@@ -0,0 +1,28 @@
+package com.dmdev.importer;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Value
+public class ImportReport {
+    long read;
+    long imported;
+    long rejected;
+    Duration elapsed;
+    Path rejectFile;
+
+    public double getThroughput() {
+        var millis = elapsed.toMillis();
+        return millis == 0
+                ? 0
+                : read * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("read=%d imported=%d rejected=%d elapsed=%dms throughput=%.0f rows/s",
+                read, imported, rejected, elapsed.toMillis(), getThroughput());
+    }
+}
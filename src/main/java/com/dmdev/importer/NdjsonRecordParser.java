@@ -0,0 +1,136 @@
+package com.dmdev.importer;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+class NdjsonRecordParser implements RecordParser {
+
+    @Override
+    public CreateSubscriptionDto parse(String line) {
+        var fields = new ObjectReader(line).read();
+        var userId = fields.get("userId");
+        var expirationDate = fields.get("expirationDate");
+        return CreateSubscriptionDto.builder()
+                .userId(userId == null ? null : Integer.valueOf(userId))
+                .name(fields.get("name"))
+                .provider(fields.get("provider"))
+                .expirationDate(expirationDate == null ? null : Instant.parse(expirationDate))
+                .build();
+    }
+
+    private static class ObjectReader {
+
+        private final String json;
+        private int position;
+
+        private ObjectReader(String json) {
+            this.json = json;
+        }
+
+        private Map<String, String> read() {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+                return end(fields);
+            }
+            do {
+                var name = readString();
+                expect(':');
+                fields.put(name, readValue());
+            } while (consume(','));
+            expect('}');
+            return end(fields);
+        }
+
+        private Map<String, String> end(Map<String, String> fields) {
+            if (peek() != 0) {
+                throw error("Unexpected content after object");
+            }
+            return fields;
+        }
+
+        private String readValue() {
+            var next = peek();
+            if (next == '"') {
+                return readString();
+            }
+            if (next == '{' || next == '[') {
+                throw error("Nested values are not supported");
+            }
+            var start = position;
+            while (position < json.length() && ",} \t".indexOf(json.charAt(position)) < 0) {
+                position++;
+            }
+            var literal = json.substring(start, position);
+            if (literal.isEmpty()) {
+                throw error("Missing value");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() {
+            expect('"');
+            var value = new StringBuilder();
+            while (position < json.length()) {
+                var character = json.charAt(position++);
+                if (character == '"') {
+                    return value.toString();
+                }
+                if (character != '\\') {
+                    value.append(character);
+                    continue;
+                }
+                if (position >= json.length()) {
+                    break;
+                }
+                var escaped = json.charAt(position++);
+                switch (escaped) {
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > json.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+                        value.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+            position++;
+        }
+
+        private boolean consume(char expected) {
+            if (peek() == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private char peek() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+            return position < json.length() ? json.charAt(position) : 0;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position);
+        }
+    }
+}
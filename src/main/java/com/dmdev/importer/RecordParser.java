@@ -0,0 +1,19 @@
+package com.dmdev.importer;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+
+interface RecordParser {
+
+    CreateSubscriptionDto parse(String line);
+
+    default boolean isHeader(String line) {
+        return false;
+    }
+
+    static RecordParser of(ImportFormat format) {
+        return switch (format) {
+            case CSV -> new CsvRecordParser();
+            case NDJSON -> new NdjsonRecordParser();
+        };
+    }
+}
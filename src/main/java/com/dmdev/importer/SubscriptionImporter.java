@@ -0,0 +1,350 @@
+package com.dmdev.importer;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionListener;
+import com.dmdev.util.TransactionOptions;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import com.dmdev.validator.Error;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.lang.System.Logger.Level.DEBUG;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class SubscriptionImporter {
+
+    private static final System.Logger log = System.getLogger(SubscriptionImporter.class.getName());
+
+    private static final String REJECT_FILE_SUFFIX = ".rejected";
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final List<Line> END_OF_LINES = List.of();
+    private static final Batch END_OF_BATCHES = new Batch(List.of(), List.of());
+
+    private final SubscriptionDao subscriptionDao;
+    private final CreateSubscriptionValidator createSubscriptionValidator;
+    private final CreateSubscriptionMapper createSubscriptionMapper;
+    private final ImportOptions options;
+    private final SubscriptionListener listener;
+
+    public SubscriptionImporter(SubscriptionDao subscriptionDao,
+                                CreateSubscriptionValidator createSubscriptionValidator,
+                                CreateSubscriptionMapper createSubscriptionMapper,
+                                ImportOptions options) {
+        this(subscriptionDao, createSubscriptionValidator, createSubscriptionMapper, options, SubscriptionListener.NONE);
+    }
+
+    public SubscriptionImporter(SubscriptionDao subscriptionDao,
+                                CreateSubscriptionValidator createSubscriptionValidator,
+                                CreateSubscriptionMapper createSubscriptionMapper,
+                                ImportOptions options,
+                                SubscriptionListener listener) {
+        if (options.getBatchSize() < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + options.getBatchSize());
+        }
+        if (options.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + options.getQueueCapacity());
+        }
+        if (options.getParallelism() < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + options.getParallelism());
+        }
+        if (options.getProgressInterval().toMillis() < 1) {
+            throw new IllegalArgumentException("Progress interval must be at least one millisecond: " + options.getProgressInterval());
+        }
+        this.subscriptionDao = subscriptionDao;
+        this.createSubscriptionValidator = createSubscriptionValidator;
+        this.createSubscriptionMapper = createSubscriptionMapper;
+        this.options = options;
+        this.listener = listener;
+    }
+
+    public ImportReport importFile(Path file) {
+        return importFile(file, ImportFormat.of(file), report -> {
+        });
+    }
+
+    public ImportReport importFile(Path file, ImportFormat format, Consumer<ImportReport> progress) {
+        var rejectFile = options.getRejectFile() != null
+                ? options.getRejectFile()
+                : file.resolveSibling(file.getFileName() + REJECT_FILE_SUFFIX);
+        try (var run = new Run(file, RecordParser.of(format), rejectFile)) {
+            var report = run.execute(progress);
+            log.log(DEBUG, "Imported " + file + ": " + report);
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Line(long number, String text) {
+    }
+
+    private record Batch(List<Subscription> subscriptions, List<Line> lines) {
+    }
+
+    private class Run implements AutoCloseable {
+
+        private final Path file;
+        private final RecordParser parser;
+        private final Path rejectFile;
+        private final BufferedWriter rejects;
+        private final BlockingQueue<List<Line>> lines = new ArrayBlockingQueue<>(options.getQueueCapacity());
+        private final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(options.getQueueCapacity());
+        private final LongAdder read = new LongAdder();
+        private final LongAdder imported = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final long startNanos = System.nanoTime();
+
+        private Run(Path file, RecordParser parser, Path rejectFile) throws IOException {
+            this.file = file;
+            this.parser = parser;
+            this.rejectFile = rejectFile;
+            this.rejects = Files.newBufferedWriter(rejectFile, UTF_8);
+        }
+
+        private ImportReport execute(Consumer<ImportReport> progress) throws IOException {
+            var stages = options.getParallelism() + 2;
+            var executor = Executors.newFixedThreadPool(stages, newThreadFactory());
+            var progressReporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "subscription-import-progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                var interval = options.getProgressInterval().toMillis();
+                progressReporter.scheduleAtFixedRate(() -> reportProgress(progress), interval, interval, TimeUnit.MILLISECONDS);
+
+                var completion = new ExecutorCompletionService<Void>(executor);
+                completion.submit(this::readLines);
+                for (int i = 0; i < options.getParallelism(); i++) {
+                    completion.submit(this::processLines);
+                }
+                completion.submit(this::writeBatches);
+                awaitAll(completion, stages);
+            } finally {
+                executor.shutdownNow();
+                progressReporter.shutdownNow();
+            }
+            rejects.flush();
+            var report = report();
+            progress.accept(report);
+            return report;
+        }
+
+        private Void readLines() throws IOException, InterruptedException {
+            try (var reader = new ChannelLineReader(FileChannel.open(file), options.getReadBufferSize())) {
+                List<Line> chunk = new ArrayList<>(options.getBatchSize());
+                long number = 0;
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    number++;
+                    if (number == 1 && !text.isEmpty() && text.charAt(0) == BYTE_ORDER_MARK) {
+                        text = text.substring(1);
+                    }
+                    if (text.isBlank() || number == 1 && parser.isHeader(text)) {
+                        continue;
+                    }
+                    chunk.add(new Line(number, text));
+                    if (chunk.size() == options.getBatchSize()) {
+                        publish(chunk);
+                        chunk = new ArrayList<>(options.getBatchSize());
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    publish(chunk);
+                }
+            }
+            for (int i = 0; i < options.getParallelism(); i++) {
+                lines.put(END_OF_LINES);
+            }
+            return null;
+        }
+
+        private void publish(List<Line> chunk) throws InterruptedException {
+            read.add(chunk.size());
+            lines.put(chunk);
+        }
+
+        private Void processLines() throws IOException, InterruptedException {
+            while (true) {
+                var chunk = lines.take();
+                if (chunk == END_OF_LINES) {
+                    batches.put(END_OF_BATCHES);
+                    return null;
+                }
+                var batch = process(chunk);
+                if (!batch.subscriptions().isEmpty()) {
+                    batches.put(batch);
+                }
+            }
+        }
+
+        private Batch process(List<Line> chunk) throws IOException {
+            List<Subscription> subscriptions = new ArrayList<>(chunk.size());
+            List<Line> accepted = new ArrayList<>(chunk.size());
+            for (Line line : chunk) {
+                CreateSubscriptionDto dto;
+                try {
+                    dto = parser.parse(line.text());
+                } catch (RuntimeException e) {
+                    reject(line, "unparseable: " + e.getMessage());
+                    continue;
+                }
+                var validationResult = createSubscriptionValidator.validate(dto);
+                if (validationResult.hasErrors()) {
+                    reject(line, validationResult.getErrors().stream()
+                            .map(Error::getMessage)
+                            .collect(Collectors.joining("; ")));
+                    continue;
+                }
+                subscriptions.add(createSubscriptionMapper.map(dto));
+                accepted.add(line);
+            }
+            return new Batch(subscriptions, accepted);
+        }
+
+        private Void writeBatches() throws IOException, InterruptedException {
+            var remainingWorkers = options.getParallelism();
+            while (remainingWorkers > 0) {
+                var batch = batches.take();
+                if (batch == END_OF_BATCHES) {
+                    remainingWorkers--;
+                } else {
+                    write(batch);
+                }
+            }
+            return null;
+        }
+
+        private void write(Batch batch) throws IOException {
+            try {
+                imported.add(subscriptionDao.inTransaction(TransactionOptions.defaults(),
+                        () -> subscriptionDao.bulkInsert(batch.subscriptions())));
+                publishBulkInserted(batch.subscriptions());
+                return;
+            } catch (Exception e) {
+                log.log(DEBUG, "Bulk insert of " + batch.subscriptions().size() + " rows failed, inserting one by one", e);
+            }
+            for (int i = 0; i < batch.subscriptions().size(); i++) {
+                try {
+                    var subscription = subscriptionDao.insert(batch.subscriptions().get(i));
+                    imported.increment();
+                    publish(subscription);
+                } catch (Exception e) {
+                    reject(batch.lines().get(i), "not inserted: " + rootMessage(e));
+                }
+            }
+        }
+
+        private void publishBulkInserted(List<Subscription> subscriptions) {
+            if (listener == SubscriptionListener.NONE) {
+                return;
+            }
+            Set<Integer> userIds = new HashSet<>();
+            Set<String> keys = new HashSet<>();
+            for (Subscription subscription : subscriptions) {
+                userIds.add(subscription.getUserId());
+                keys.add(subscription.getUserId() + "\t" + subscription.getName());
+            }
+            subscriptionDao.findByUserIds(userIds).values().stream()
+                    .flatMap(List::stream)
+                    .filter(subscription -> keys.contains(subscription.getUserId() + "\t" + subscription.getName()))
+                    .forEach(this::publish);
+        }
+
+        private void publish(Subscription subscription) {
+            try {
+                listener.onUpserted(subscription);
+            } catch (RuntimeException e) {
+                log.log(WARNING, "Subscription listener " + listener + " failed", e);
+            }
+        }
+
+        private void reject(Line line, String reason) throws IOException {
+            rejected.increment();
+            synchronized (rejects) {
+                rejects.write(line.number() + "\t" + reason.replaceAll("\\s+", " ") + "\t" + line.text());
+                rejects.newLine();
+            }
+        }
+
+        private void reportProgress(Consumer<ImportReport> progress) {
+            try {
+                progress.accept(report());
+            } catch (RuntimeException e) {
+                log.log(WARNING, "Import progress listener failed", e);
+            }
+        }
+
+        private ImportReport report() {
+            return new ImportReport(read.sum(), imported.sum(), rejected.sum(),
+                    Duration.ofNanos(System.nanoTime() - startNanos), rejectFile);
+        }
+
+        @Override
+        public void close() throws IOException {
+            rejects.close();
+        }
+    }
+
+    private static void awaitAll(ExecutorCompletionService<Void> completion, int stages) throws IOException {
+        try {
+            for (int i = 0; i < stages; i++) {
+                completion.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Import failed", cause);
+        }
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        var counter = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, "subscription-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static String rootMessage(Throwable throwable) {
+        var root = throwable;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,19 @@
+package com.dmdev.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dmdev.ConnectionAcquire")
+@Label("Connection Acquire")
+@Description("Borrowing a connection from the pool through ConnectionManager")
+@Category({"Subscriptions", "Database"})
+@StackTrace(false)
+public class ConnectionAcquireEvent extends Event {
+
+    @Label("Outcome")
+    public String outcome;
+}
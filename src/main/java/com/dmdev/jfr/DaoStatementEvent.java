@@ -0,0 +1,30 @@
+package com.dmdev.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dmdev.DaoStatement")
+@Label("DAO Statement")
+@Description("Execution of a single SubscriptionDao statement")
+@Category({"Subscriptions", "Database"})
+@StackTrace(false)
+public class DaoStatementEvent extends Event {
+
+    @Label("SQL Id")
+    public String sqlId;
+
+    @Label("Row Count")
+    @Description("Minus one when the statement does not report rows")
+    public int rowCount = -1;
+
+    @Label("User Id")
+    @Description("Zero when the call is not bound to a single user")
+    public int userId;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,15 @@
+package com.dmdev.jfr;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class Outcome {
+
+    public static final String SUCCESS = "SUCCESS";
+
+    public static String of(Throwable throwable) {
+        return throwable == null
+                ? SUCCESS
+                : throwable.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,28 @@
+package com.dmdev.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.dmdev.ServiceOperation")
+@Label("Service Operation")
+@Description("A single SubscriptionService operation")
+@Category({"Subscriptions", "Service"})
+public class ServiceOperationEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("User Id")
+    @Description("Zero when the call is not bound to a single user")
+    public int userId;
+
+    @Label("Subscription Id")
+    @Description("Zero when the call is not bound to a single subscription")
+    public int subscriptionId;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,130 @@
+package com.dmdev.journal;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@UtilityClass
+class JournalCodec {
+
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    private static final int FIXED_BODY_SIZE = Long.BYTES * 2 + Byte.BYTES + Integer.BYTES;
+    private static final int UPSERT_BODY_SIZE = Integer.BYTES + Long.BYTES + Short.BYTES + Byte.BYTES * 2;
+    private static final JournalEntryType[] TYPES = JournalEntryType.values();
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    static byte[] encodeName(Subscription subscription) {
+        return subscription == null ? null : subscription.getName().getBytes(UTF_8);
+    }
+
+    static int size(Subscription subscription, byte[] name) {
+        var size = HEADER_SIZE + FIXED_BODY_SIZE;
+        if (subscription != null) {
+            size += UPSERT_BODY_SIZE + name.length
+                    + subscription.getProvider().name().length()
+                    + subscription.getStatus().name().length();
+        }
+        return size;
+    }
+
+    static void write(ByteBuffer buffer, int position, int size, long sequence, long timestampMillis,
+                      JournalEntryType type, Integer subscriptionId, Subscription subscription, byte[] name) {
+        var body = buffer.duplicate().position(position + HEADER_SIZE).limit(position + size).slice();
+        body.putLong(sequence)
+                .putLong(timestampMillis)
+                .put((byte) type.ordinal())
+                .putInt(subscriptionId);
+        if (subscription != null) {
+            body.putInt(subscription.getUserId())
+                    .putLong(subscription.getExpirationDate().toEpochMilli())
+                    .putShort((short) name.length)
+                    .put(name);
+            putAscii(body, subscription.getProvider().name());
+            putAscii(body, subscription.getStatus().name());
+        }
+
+        var crc = new CRC32C();
+        crc.update(body.flip());
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(position, size - HEADER_SIZE);
+    }
+
+    static JournalEntry read(ByteBuffer buffer) {
+        var position = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        var length = buffer.getInt(position);
+        if (length < FIXED_BODY_SIZE || length > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        var body = buffer.duplicate().position(position + HEADER_SIZE).limit(position + HEADER_SIZE + length).slice();
+        var crc = new CRC32C();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+            return null;
+        }
+
+        var sequence = body.getLong();
+        var timestamp = Instant.ofEpochMilli(body.getLong());
+        var type = TYPES[body.get()];
+        var subscriptionId = body.getInt();
+        Subscription subscription = null;
+        if (body.hasRemaining()) {
+            var userId = body.getInt();
+            var expirationDate = Instant.ofEpochMilli(body.getLong());
+            var name = new byte[Short.toUnsignedInt(body.getShort())];
+            body.get(name);
+            subscription = Subscription.builder()
+                    .id(subscriptionId)
+                    .userId(userId)
+                    .name(new String(name, UTF_8))
+                    .expirationDate(expirationDate)
+                    .provider(Provider.valueOf(getAscii(body)))
+                    .status(Status.valueOf(getAscii(body)))
+                    .build();
+        }
+        buffer.position(position + HEADER_SIZE + length);
+        return new JournalEntry(sequence, timestamp, type, subscriptionId, subscription);
+    }
+
+    static Path segmentPath(Path directory, long baseSequence) {
+        return directory.resolve(String.format("%020d%s", baseSequence, SEGMENT_SUFFIX));
+    }
+
+    static List<Long> segments(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(SEGMENT_SUFFIX))
+                    .map(fileName -> Long.valueOf(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void putAscii(ByteBuffer buffer, String value) {
+        buffer.put((byte) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private static String getAscii(ByteBuffer buffer) {
+        var bytes = new byte[buffer.get()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
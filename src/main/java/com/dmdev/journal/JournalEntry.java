@@ -0,0 +1,15 @@
+package com.dmdev.journal;
+
+import com.dmdev.entity.Subscription;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class JournalEntry {
+    long sequence;
+    Instant timestamp;
+    JournalEntryType type;
+    Integer subscriptionId;
+    Subscription subscription;
+}
@@ -0,0 +1,7 @@
+package com.dmdev.journal;
+
+public enum JournalEntryType {
+    UPSERT,
+    CANCEL,
+    EXPIRE
+}
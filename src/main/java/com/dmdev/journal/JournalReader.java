@@ -0,0 +1,51 @@
+package com.dmdev.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+public class JournalReader {
+
+    private final Path directory;
+
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    public long replay(long fromSequence, Consumer<JournalEntry> consumer) {
+        try {
+            if (!Files.isDirectory(directory)) {
+                return fromSequence;
+            }
+            var segments = JournalCodec.segments(directory);
+            var first = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                if (segments.get(i) <= fromSequence) {
+                    first = i;
+                }
+            }
+
+            var nextSequence = fromSequence;
+            for (int i = first; i < segments.size(); i++) {
+                try (var channel = FileChannel.open(JournalCodec.segmentPath(directory, segments.get(i)))) {
+                    var buffer = channel.map(READ_ONLY, 0, channel.size());
+                    JournalEntry entry;
+                    while ((entry = JournalCodec.read(buffer)) != null) {
+                        if (entry.getSequence() >= nextSequence) {
+                            consumer.accept(entry);
+                            nextSequence = entry.getSequence() + 1;
+                        }
+                    }
+                }
+            }
+            return nextSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
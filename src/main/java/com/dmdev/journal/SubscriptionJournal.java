@@ -0,0 +1,248 @@
+package com.dmdev.journal;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.metrics.Metrics;
+import com.dmdev.service.SubscriptionListener;
+import com.dmdev.util.PropertiesUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.System.Logger.Level.WARNING;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+public class SubscriptionJournal implements SubscriptionListener, AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(SubscriptionJournal.class.getName());
+
+    private static final String SEGMENT_SIZE_KEY = "journal.segment-size-bytes";
+    private static final String SYNC_BATCH_SIZE_KEY = "journal.sync-batch-size";
+    private static final String SYNC_INTERVAL_KEY = "journal.sync-interval-ms";
+    private static final String APPEND_METRIC = "journal.append";
+    private static final String SYNC_METRIC = "journal.sync";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int syncBatchSize;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "subscription-journal-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private MappedByteBuffer segment;
+    private long nextSequence;
+    private int unsynced;
+    private boolean syncScheduled;
+    private boolean closed;
+
+    public SubscriptionJournal(Path directory, int segmentSize, int syncBatchSize, Duration syncInterval, Clock clock) {
+        if (segmentSize < JournalCodec.HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        if (syncBatchSize < 1) {
+            throw new IllegalArgumentException("Sync batch size must be positive: " + syncBatchSize);
+        }
+        if (syncInterval.toMillis() < 1) {
+            throw new IllegalArgumentException("Sync interval must be at least one millisecond: " + syncInterval);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncBatchSize = syncBatchSize;
+        this.clock = clock;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        syncer.scheduleWithFixedDelay(this::sync, syncInterval.toMillis(), syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static SubscriptionJournal create(Path directory) {
+        return new SubscriptionJournal(
+                directory,
+                Integer.parseInt(PropertiesUtil.get(SEGMENT_SIZE_KEY, "67108864")),
+                Integer.parseInt(PropertiesUtil.get(SYNC_BATCH_SIZE_KEY, "256")),
+                Duration.ofMillis(Long.parseLong(PropertiesUtil.get(SYNC_INTERVAL_KEY, "100"))),
+                Clock.systemUTC());
+    }
+
+    public long append(JournalEntryType type, Integer subscriptionId, Subscription subscription) {
+        var start = System.nanoTime();
+        var name = JournalCodec.encodeName(subscription);
+        if (name != null && name.length > JournalCodec.MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Subscription name of " + name.length + " bytes is too long for the journal");
+        }
+        var size = JournalCodec.size(subscription, name);
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Journal entry of " + size + " bytes does not fit into a segment");
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (segment.remaining() < size) {
+                roll();
+            }
+            var sequence = nextSequence++;
+            var position = segment.position();
+            JournalCodec.write(segment, position, size, sequence, clock.millis(), type, subscriptionId, subscription, name);
+            segment.position(position + size);
+            if (++unsynced >= syncBatchSize && !syncScheduled) {
+                syncScheduled = true;
+                requestSync();
+            }
+            return sequence;
+        } finally {
+            lock.unlock();
+            Metrics.registry().recordLatency(APPEND_METRIC, System.nanoTime() - start);
+        }
+    }
+
+    public long getNextSequence() {
+        lock.lock();
+        try {
+            return nextSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sync() {
+        MappedByteBuffer current;
+        lock.lock();
+        try {
+            syncScheduled = false;
+            if (unsynced == 0 || segment == null) {
+                return;
+            }
+            unsynced = 0;
+            current = segment;
+        } finally {
+            lock.unlock();
+        }
+        force(current);
+    }
+
+    @Override
+    public void onUpserted(Subscription subscription) {
+        append(JournalEntryType.UPSERT, subscription.getId(), subscription);
+    }
+
+    @Override
+    public void onCanceled(Integer subscriptionId) {
+        append(JournalEntryType.CANCEL, subscriptionId, null);
+    }
+
+    @Override
+    public void onExpired(Integer subscriptionId) {
+        append(JournalEntryType.EXPIRE, subscriptionId, null);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        force(segment);
+        segment = null;
+    }
+
+    private void recover() throws IOException {
+        var segments = JournalCodec.segments(directory);
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            segment = map(1);
+            return;
+        }
+        var baseSequence = segments.get(segments.size() - 1);
+        segment = map(baseSequence);
+        nextSequence = baseSequence;
+        JournalEntry entry;
+        while ((entry = JournalCodec.read(segment)) != null) {
+            nextSequence = entry.getSequence() + 1;
+        }
+        discardTornEntry();
+    }
+
+    private void discardTornEntry() {
+        var position = segment.position();
+        if (segment.remaining() < JournalCodec.HEADER_SIZE) {
+            return;
+        }
+        var length = segment.getInt(position);
+        var end = length < 0 || length > segment.remaining() - JournalCodec.HEADER_SIZE
+                ? segment.limit()
+                : position + JournalCodec.HEADER_SIZE + length;
+        for (int i = position; i < end; i++) {
+            segment.put(i, (byte) 0);
+        }
+    }
+
+    private void roll() {
+        var previous = segment;
+        try {
+            segment = map(nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        unsynced = 0;
+        syncer.execute(() -> force(previous));
+    }
+
+    private MappedByteBuffer map(long baseSequence) throws IOException {
+        var path = JournalCodec.segmentPath(directory, baseSequence);
+        try (var channel = FileChannel.open(path, CREATE, READ, WRITE)) {
+            return channel.map(READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        }
+    }
+
+    private void requestSync() {
+        try {
+            syncer.execute(this::sync);
+        } catch (RejectedExecutionException e) {
+            syncScheduled = false;
+        }
+    }
+
+    private static void force(MappedByteBuffer buffer) {
+        var start = System.nanoTime();
+        try {
+            buffer.force();
+        } catch (UncheckedIOException e) {
+            log.log(WARNING, "Journal sync failed", e);
+            Metrics.registry().recordError(SYNC_METRIC);
+        } finally {
+            Metrics.registry().recordLatency(SYNC_METRIC, System.nanoTime() - start);
+        }
+    }
+}
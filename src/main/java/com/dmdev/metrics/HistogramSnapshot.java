@@ -0,0 +1,19 @@
+package com.dmdev.metrics;
+
+import lombok.Value;
+
+@Value
+public class HistogramSnapshot {
+    long count;
+    long sum;
+    long max;
+    long p50;
+    long p99;
+    long p999;
+
+    public double getMean() {
+        return count == 0
+                ? 0
+                : (double) sum / count;
+    }
+}
@@ -0,0 +1,48 @@
+package com.dmdev.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class LockFreeMetricsRegistry implements MetricsRegistry {
+
+    private final ConcurrentMap<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> values = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordLatency(String name, long nanos) {
+        get(latencies, name, key -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void recordError(String name) {
+        get(errors, name, key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordValue(String name, long value) {
+        get(values, name, key -> new Histogram()).record(value);
+    }
+
+    @Override
+    public MetricsSnapshot snapshot() {
+        Map<String, HistogramSnapshot> latencySnapshots = new TreeMap<>();
+        latencies.forEach((name, histogram) -> latencySnapshots.put(name, histogram.snapshot()));
+        Map<String, HistogramSnapshot> valueSnapshots = new TreeMap<>();
+        values.forEach((name, histogram) -> valueSnapshots.put(name, histogram.snapshot()));
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((name, counter) -> errorCounts.put(name, counter.sum()));
+        return new MetricsSnapshot(latencySnapshots, valueSnapshots, errorCounts);
+    }
+
+    private static <T> T get(ConcurrentMap<String, T> metrics, String name, Function<String, T> factory) {
+        var metric = metrics.get(name);
+        return metric != null
+                ? metric
+                : metrics.computeIfAbsent(name, factory);
+    }
+}
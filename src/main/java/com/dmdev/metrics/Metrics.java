@@ -0,0 +1,17 @@
+package com.dmdev.metrics;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class Metrics {
+
+    private static volatile MetricsRegistry registry = new LockFreeMetricsRegistry();
+
+    public static MetricsRegistry registry() {
+        return registry;
+    }
+
+    public static void setRegistry(MetricsRegistry metricsRegistry) {
+        registry = metricsRegistry;
+    }
+}
@@ -0,0 +1,16 @@
+package com.dmdev.metrics;
+
+public interface MetricsRegistry {
+
+    void recordLatency(String name, long nanos);
+
+    void recordError(String name);
+
+    void recordValue(String name, long value);
+
+    MetricsSnapshot snapshot();
+
+    static MetricsRegistry noop() {
+        return NoopMetricsRegistry.INSTANCE;
+    }
+}
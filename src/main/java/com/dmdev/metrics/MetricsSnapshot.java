@@ -0,0 +1,77 @@
+package com.dmdev.metrics;
+
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class MetricsSnapshot {
+    Map<String, HistogramSnapshot> latencies;
+    Map<String, HistogramSnapshot> values;
+    Map<String, Long> errors;
+
+    public String toText() {
+        var text = new StringBuilder();
+        latencies.forEach((name, histogram) -> appendText(text, name + ".latency_ns", histogram));
+        values.forEach((name, histogram) -> appendText(text, name, histogram));
+        errors.forEach((name, count) -> text.append(name).append(".errors ").append(count).append('\n'));
+        return text.toString();
+    }
+
+    public String toJson() {
+        var json = new StringBuilder("{\"latencies\":");
+        appendJson(json, latencies);
+        json.append(",\"values\":");
+        appendJson(json, values);
+        json.append(",\"errors\":{");
+        var first = true;
+        for (Map.Entry<String, Long> error : errors.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendJsonString(json, error.getKey()).append(':').append(error.getValue());
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void appendText(StringBuilder text, String name, HistogramSnapshot histogram) {
+        text.append(name).append(".count ").append(histogram.getCount()).append('\n')
+                .append(name).append(".max ").append(histogram.getMax()).append('\n')
+                .append(name).append(".p50 ").append(histogram.getP50()).append('\n')
+                .append(name).append(".p99 ").append(histogram.getP99()).append('\n')
+                .append(name).append(".p999 ").append(histogram.getP999()).append('\n');
+    }
+
+    private static void appendJson(StringBuilder json, Map<String, HistogramSnapshot> histograms) {
+        json.append('{');
+        var first = true;
+        for (Map.Entry<String, HistogramSnapshot> entry : histograms.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            var histogram = entry.getValue();
+            appendJsonString(json, entry.getKey())
+                    .append(":{\"count\":").append(histogram.getCount())
+                    .append(",\"sum\":").append(histogram.getSum())
+                    .append(",\"max\":").append(histogram.getMax())
+                    .append(",\"p50\":").append(histogram.getP50())
+                    .append(",\"p99\":").append(histogram.getP99())
+                    .append(",\"p999\":").append(histogram.getP999())
+                    .append('}');
+        }
+        json.append('}');
+    }
+
+    private static StringBuilder appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (char character : value.toCharArray()) {
+            if (character == '"' || character == '\\') {
+                json.append('\\');
+            }
+            json.append(character);
+        }
+        return json.append('"');
+    }
+}
@@ -0,0 +1,24 @@
+package com.dmdev.metrics;
+
+import java.util.Map;
+
+enum NoopMetricsRegistry implements MetricsRegistry {
+    INSTANCE;
+
+    @Override
+    public void recordLatency(String name, long nanos) {
+    }
+
+    @Override
+    public void recordError(String name) {
+    }
+
+    @Override
+    public void recordValue(String name, long value) {
+    }
+
+    @Override
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(Map.of(), Map.of(), Map.of());
+    }
+}
@@ -0,0 +1,99 @@
+package com.dmdev.service;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.ConnectionManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+public class AsyncSubscriptionService implements AutoCloseable {
+
+    private final SubscriptionService subscriptionService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public AsyncSubscriptionService(SubscriptionService subscriptionService) {
+        this(subscriptionService, ConnectionManager.maxPoolSize());
+    }
+
+    public AsyncSubscriptionService(SubscriptionService subscriptionService, int maxConcurrency) {
+        this(subscriptionService, newTaskExecutor(maxConcurrency), maxConcurrency);
+    }
+
+    AsyncSubscriptionService(SubscriptionService subscriptionService, ExecutorService executor, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        this.subscriptionService = subscriptionService;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    public CompletableFuture<Subscription> upsert(CreateSubscriptionDto dto) {
+        return submit(() -> subscriptionService.upsert(dto));
+    }
+
+    public CompletableFuture<Void> cancel(Integer subscriptionId) {
+        return submit(() -> {
+            subscriptionService.cancel(subscriptionId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> expire(Integer subscriptionId) {
+        return submit(() -> {
+            subscriptionService.expire(subscriptionId);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        var future = new CompletableFuture<T>();
+        try {
+            executor.execute(() -> run(operation, future));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return future;
+    }
+
+    private <T> void run(Supplier<T> operation, CompletableFuture<T> future) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            future.complete(operation.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static ExecutorService newTaskExecutor(int maxConcurrency) {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                var thread = new Thread(runnable, "subscription-async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.System.Logger.Level.WARNING;
+
+public class ExpirationIndex implements SubscriptionListener, AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(ExpirationIndex.class.getName());
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final SubscriptionService subscriptionService;
+    private final Clock clock;
+    private final long tickMillis;
+    private final NavigableMap<Long, Set<Integer>> buckets = new TreeMap<>();
+    private final Map<Integer, Long> bucketById = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "expiration-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ExpirationIndex(SubscriptionService subscriptionService, Clock clock, Duration tick) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond: " + tick);
+        }
+        this.subscriptionService = subscriptionService;
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+    }
+
+    public int load(SubscriptionDao subscriptionDao) {
+        var filter = SubscriptionFilter.builder()
+                .status(Status.ACTIVE)
+                .build();
+        var loaded = 0;
+        Integer cursor = null;
+        do {
+            var page = subscriptionDao.findPage(cursor, LOAD_PAGE_SIZE, filter);
+            for (Subscription subscription : page.getContent()) {
+                schedule(subscription.getId(), subscription.getExpirationDate());
+            }
+            loaded += page.getContent().size();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        return loaded;
+    }
+
+    public void start() {
+        executor.scheduleAtFixedRate(this::run, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void schedule(Integer subscriptionId, Instant expirationDate) {
+        var bucket = Math.floorDiv(expirationDate.toEpochMilli() + tickMillis - 1, tickMillis);
+        lock.lock();
+        try {
+            unschedule(subscriptionId);
+            bucketById.put(subscriptionId, bucket);
+            buckets.computeIfAbsent(bucket, key -> new HashSet<>()).add(subscriptionId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Integer subscriptionId) {
+        lock.lock();
+        try {
+            unschedule(subscriptionId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return bucketById.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int advance() {
+        var currentBucket = Math.floorDiv(clock.millis(), tickMillis);
+        List<Integer> due = new ArrayList<>();
+        lock.lock();
+        try {
+            var expiredBuckets = buckets.headMap(currentBucket, true);
+            for (Set<Integer> subscriptionIds : expiredBuckets.values()) {
+                due.addAll(subscriptionIds);
+                subscriptionIds.forEach(bucketById::remove);
+            }
+            expiredBuckets.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        var expired = 0;
+        for (Integer subscriptionId : due) {
+            try {
+                if (subscriptionService.expireIfDue(subscriptionId)) {
+                    expired++;
+                }
+            } catch (RuntimeException e) {
+                log.log(WARNING, "Expiration of subscription " + subscriptionId + " failed", e);
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public void onUpserted(Subscription subscription) {
+        if (subscription.getStatus() == Status.ACTIVE) {
+            schedule(subscription.getId(), subscription.getExpirationDate());
+        } else {
+            remove(subscription.getId());
+        }
+    }
+
+    @Override
+    public void onCanceled(Integer subscriptionId) {
+        remove(subscriptionId);
+    }
+
+    @Override
+    public void onExpired(Integer subscriptionId) {
+        remove(subscriptionId);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void unschedule(Integer subscriptionId) {
+        var bucket = bucketById.remove(subscriptionId);
+        if (bucket == null) {
+            return;
+        }
+        var subscriptionIds = buckets.get(bucket);
+        subscriptionIds.remove(subscriptionId);
+        if (subscriptionIds.isEmpty()) {
+            buckets.remove(bucket);
+        }
+    }
+
+    private void run() {
+        try {
+            advance();
+        } catch (RuntimeException e) {
+            log.log(WARNING, "Expiration index tick failed", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static java.lang.System.Logger.Level.INFO;
+import static java.lang.System.Logger.Level.WARNING;
+
+@RequiredArgsConstructor
+public class ExpirationSweeper implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(ExpirationSweeper.class.getName());
+
+    private final SubscriptionDao subscriptionDao;
+    private final Clock clock;
+    private final int chunkSize;
+    private final Duration pause;
+    private final SubscriptionListener listener;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "expiration-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ExpirationSweeper(SubscriptionDao subscriptionDao, Clock clock, int chunkSize, Duration pause) {
+        this(subscriptionDao, clock, chunkSize, pause, SubscriptionListener.NONE);
+    }
+
+    public int sweep() {
+        var now = Instant.now(clock);
+        var total = 0;
+        int expired;
+        do {
+            var expiredIds = subscriptionDao.expireIdsBefore(now, chunkSize);
+            expiredIds.forEach(this::publishExpired);
+            expired = expiredIds.size();
+            total += expired;
+        } while (expired == chunkSize && pauseBetweenChunks());
+
+        return total;
+    }
+
+    public void start(Duration period) {
+        start(period, expired -> {
+        });
+    }
+
+    public void start(Duration period, IntConsumer reporter) {
+        executor.scheduleWithFixedDelay(() -> run(reporter), 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void run(IntConsumer reporter) {
+        try {
+            var start = System.nanoTime();
+            var expired = sweep();
+            log.log(INFO, "Expired {0} subscriptions in {1} ms",
+                    expired, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            reporter.accept(expired);
+        } catch (RuntimeException e) {
+            log.log(WARNING, "Expiration sweep failed", e);
+        }
+    }
+
+    private void publishExpired(Integer subscriptionId) {
+        try {
+            listener.onExpired(subscriptionId);
+        } catch (RuntimeException e) {
+            log.log(WARNING, "Subscription listener " + listener + " failed", e);
+        }
+    }
+
+    private boolean pauseBetweenChunks() {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.dmdev.service;
+
+import com.dmdev.entity.Subscription;
+
+public interface SubscriptionListener {
+
+    SubscriptionListener NONE = new SubscriptionListener() {
+    };
+
+    default void onUpserted(Subscription subscription) {
+    }
+
+    default void onCanceled(Integer subscriptionId) {
+    }
+
+    default void onExpired(Integer subscriptionId) {
+    }
+}
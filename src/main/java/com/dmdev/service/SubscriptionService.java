@@ -1,63 +1,361 @@
 package com.dmdev.service;
 
-import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dao.SubscriptionRepository;
 import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.dto.UpsertResult;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
+import com.dmdev.jfr.Outcome;
+import com.dmdev.jfr.ServiceOperationEvent;
 import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.metrics.Metrics;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.StripedLock;
+import com.dmdev.util.TransactionOptions;
 import com.dmdev.validator.CreateSubscriptionValidator;
+import com.dmdev.validator.Error;
 import lombok.RequiredArgsConstructor;
 
+import java.sql.SQLException;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static java.lang.System.Logger.Level.WARNING;
 
 @RequiredArgsConstructor
 public class SubscriptionService {
 
-    private final SubscriptionDao subscriptionDao;
+    private static final System.Logger log = System.getLogger(SubscriptionService.class.getName());
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int WRITE_FAILED_CODE = 200;
+    private static final String DATA_EXCEPTION_CLASS = "22";
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_CLASS = "23";
+    private static final String METRIC_PREFIX = "service.";
+    private static final String TRANSACTION_ISOLATION_KEY = "service.transaction.isolation";
+    private static final String UPSERT_LOCK_STRIPES_KEY = "service.upsert.lock-stripes";
+
+    private final SubscriptionRepository subscriptionDao;
     private final CreateSubscriptionMapper createSubscriptionMapper;
     private final CreateSubscriptionValidator createSubscriptionValidator;
     private final Clock clock;
+    private final TransactionOptions writeTransaction = TransactionOptions.builder()
+            .isolation(IsolationLevel.valueOf(PropertiesUtil.get(TRANSACTION_ISOLATION_KEY, IsolationLevel.DEFAULT.name())))
+            .build();
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+    private final SubscriptionListener publisher = new SubscriptionListener() {
+        @Override
+        public void onUpserted(Subscription subscription) {
+            notifyListeners(listener -> listener.onUpserted(subscription));
+        }
+
+        @Override
+        public void onCanceled(Integer subscriptionId) {
+            notifyListeners(listener -> listener.onCanceled(subscriptionId));
+        }
+
+        @Override
+        public void onExpired(Integer subscriptionId) {
+            notifyListeners(listener -> listener.onExpired(subscriptionId));
+        }
+    };
+    private final StripedLock upsertLocks = new StripedLock(Integer.parseInt(PropertiesUtil.get(UPSERT_LOCK_STRIPES_KEY, "64")));
 
     public Subscription upsert(CreateSubscriptionDto dto) {
+        return upsert(dto, UpsertMode.READ_THEN_WRITE);
+    }
+
+    public Subscription upsert(CreateSubscriptionDto dto, UpsertMode mode) {
+        var subscription = measure("upsert", dto.getUserId(), null, () -> doUpsert(dto, mode));
+        notifyListeners(listener -> listener.onUpserted(subscription));
+        return subscription;
+    }
+
+    private Subscription doUpsert(CreateSubscriptionDto dto, UpsertMode mode) {
         var validationResult = createSubscriptionValidator.validate(dto);
         if (validationResult.hasErrors()) {
             throw new ValidationException(validationResult.getErrors());
         }
+        if (mode == UpsertMode.NATIVE) {
+            return subscriptionDao.upsertByKey(createSubscriptionMapper.map(dto));
+        }
+
+        var key = new UpsertKey(dto.getUserId(), dto.getName());
+        return upsertLocks.withLock(key, () -> subscriptionDao.inTransaction(writeTransaction, () -> {
+            Subscription subscription = subscriptionDao.findByUserId(dto.getUserId()).stream()
+                    .filter(existingSubscription -> existingSubscription.getName().equals(dto.getName()))
+                    .findFirst()
+                    .map(existingSubscription -> renew(existingSubscription, dto))
+                    .orElseGet(() -> createSubscriptionMapper.map(dto));
+
+            return subscriptionDao.upsert(subscription);
+        }));
+    }
+
+    public List<UpsertResult> upsertAll(Collection<CreateSubscriptionDto> dtos) {
+        return upsertAll(dtos, DEFAULT_BATCH_SIZE);
+    }
+
+    public List<UpsertResult> upsertAll(Collection<CreateSubscriptionDto> dtos, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        return measure("upsertAll", null, null, () -> doUpsertAll(dtos, batchSize));
+    }
+
+    private List<UpsertResult> doUpsertAll(Collection<CreateSubscriptionDto> dtos, int batchSize) {
+        var results = new UpsertResult[dtos.size()];
+        Map<Integer, PendingChunk> chunks = new LinkedHashMap<>();
+        var index = 0;
+        for (CreateSubscriptionDto dto : dtos) {
+            var shard = dto.getUserId() == null ? 0 : subscriptionDao.shardOf(dto.getUserId());
+            var chunk = chunks.computeIfAbsent(shard, key -> new PendingChunk(Math.min(batchSize, dtos.size())));
+            chunk.indexes().add(index++);
+            chunk.dtos().add(dto);
+            if (chunk.dtos().size() == batchSize) {
+                flush(chunk, results);
+            }
+        }
+        for (PendingChunk chunk : chunks.values()) {
+            if (!chunk.dtos().isEmpty()) {
+                flush(chunk, results);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void flush(PendingChunk chunk, UpsertResult[] results) {
+        var written = upsertChunk(chunk.dtos());
+        for (int i = 0; i < written.size(); i++) {
+            results[chunk.indexes().get(i)] = written.get(i);
+        }
+        chunk.indexes().clear();
+        chunk.dtos().clear();
+    }
+
+    private List<UpsertResult> upsertChunk(List<CreateSubscriptionDto> chunk) {
+        var results = new UpsertResult[chunk.size()];
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            var dto = chunk.get(i);
+            var validationResult = createSubscriptionValidator.validate(dto);
+            if (validationResult.hasErrors()) {
+                results[i] = UpsertResult.failure(dto, validationResult.getErrors());
+            } else {
+                userIds.add(dto.getUserId());
+            }
+        }
+        if (userIds.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        List<UpsertResult> written;
+        try {
+            written = subscriptionDao.inTransaction(writeTransaction, () -> writeChunk(chunk, results, userIds));
+        } catch (Exception e) {
+            if (!isDataFailure(e)) {
+                throw e;
+            }
+            log.log(WARNING, "Upsert of a chunk of " + chunk.size() + " subscriptions was rolled back", e);
+            return failChunk(chunk, results, e);
+        }
+        for (UpsertResult result : written) {
+            if (result.isSuccess()) {
+                notifyListeners(listener -> listener.onUpserted(result.getSubscription()));
+            }
+        }
+        return written;
+    }
+
+    private List<UpsertResult> failChunk(List<CreateSubscriptionDto> chunk, UpsertResult[] results, Exception cause) {
+        var error = Error.of(WRITE_FAILED_CODE, "subscription is not saved: " + cause.getMessage());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] == null || results[i].isSuccess()) {
+                results[i] = UpsertResult.failure(chunk.get(i), List.of(error));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<UpsertResult> writeChunk(List<CreateSubscriptionDto> chunk, UpsertResult[] results, Set<Integer> userIds) {
+        Map<UpsertKey, Subscription> subscriptions = new HashMap<>();
+        for (List<Subscription> userSubscriptions : subscriptionDao.findByUserIds(userIds).values()) {
+            for (Subscription existingSubscription : userSubscriptions) {
+                subscriptions.putIfAbsent(UpsertKey.of(existingSubscription), existingSubscription);
+            }
+        }
+
+        Map<UpsertKey, Subscription> inserts = new LinkedHashMap<>();
+        Map<UpsertKey, Subscription> updates = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            var dto = chunk.get(i);
+            var key = new UpsertKey(dto.getUserId(), dto.getName());
+            var subscription = subscriptions.get(key);
+            if (subscription == null) {
+                subscription = createSubscriptionMapper.map(dto);
+                subscriptions.put(key, subscription);
+                inserts.put(key, subscription);
+            } else {
+                renew(subscription, dto);
+                if (!inserts.containsKey(key)) {
+                    updates.put(key, subscription);
+                }
+            }
+            results[i] = UpsertResult.success(dto, subscription);
+        }
+
+        subscriptionDao.insertAll(new ArrayList<>(inserts.values()));
+        subscriptionDao.updateAll(new ArrayList<>(updates.values()));
+        return Arrays.asList(results);
+    }
+
+    private static Subscription renew(Subscription subscription, CreateSubscriptionDto dto) {
+        return subscription.setProvider(Provider.findByName(dto.getProvider()))
+                .setExpirationDate(dto.getExpirationDate())
+                .setStatus(Status.ACTIVE);
+    }
 
-        Subscription subscription = subscriptionDao.findByUserId(dto.getUserId()).stream()
-                .filter(existingSubscription -> existingSubscription.getName().equals(dto.getName()))
-                .filter(existingSubscription -> existingSubscription.getProvider() == Provider.findByName(dto.getProvider()))
-                .findFirst()
-                .map(existingSubscription -> existingSubscription
-                        .setExpirationDate(dto.getExpirationDate())
-                        .setStatus(Status.ACTIVE))
-                .orElseGet(() -> createSubscriptionMapper.map(dto));
+    private static boolean isDataFailure(Throwable failure) {
+        for (var cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                for (var next = sqlException; next != null; next = next.getNextException()) {
+                    var sqlState = next.getSQLState();
+                    if (sqlState != null && (sqlState.startsWith(DATA_EXCEPTION_CLASS)
+                            || sqlState.startsWith(INTEGRITY_CONSTRAINT_VIOLATION_CLASS))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
 
-        return subscriptionDao.upsert(subscription);
+    public List<Subscription> findByUserId(Integer userId) {
+        return measure("findByUserId", userId, null,
+                () -> subscriptionDao.inTransaction(TransactionOptions.readOnly(), () -> subscriptionDao.findByUserId(userId)));
     }
 
     public void cancel(Integer subscriptionId) {
-        var subscription = subscriptionDao.findById(subscriptionId)
-                .orElseThrow(IllegalArgumentException::new);
-        if (subscription.getStatus() != Status.ACTIVE) {
+        measure("cancel", subscriptionId, () -> doCancel(subscriptionId));
+        notifyListeners(listener -> listener.onCanceled(subscriptionId));
+    }
+
+    private void doCancel(Integer subscriptionId) {
+        if (!subscriptionDao.cancelIfActive(subscriptionId)) {
+            subscriptionDao.findById(subscriptionId)
+                    .orElseThrow(IllegalArgumentException::new);
             throw new SubscriptionException(String.format("Only active subscription %d can be canceled", subscriptionId));
         }
-        subscription.setStatus(Status.CANCELED);
-        subscriptionDao.update(subscription);
     }
 
     public void expire(Integer subscriptionId) {
-        var subscription = subscriptionDao.findById(subscriptionId)
-                .orElseThrow(IllegalArgumentException::new);
-        if (subscription.getStatus() == Status.EXPIRED) {
+        measure("expire", subscriptionId, () -> doExpire(subscriptionId));
+        notifyListeners(listener -> listener.onExpired(subscriptionId));
+    }
+
+    public boolean expireIfDue(Integer subscriptionId) {
+        boolean expired = measure("expireIfDue", null, subscriptionId,
+                () -> subscriptionDao.expireIfDue(subscriptionId, Instant.now(clock)));
+        if (expired) {
+            notifyListeners(listener -> listener.onExpired(subscriptionId));
+        }
+        return expired;
+    }
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SubscriptionListener listener) {
+        listeners.remove(listener);
+    }
+
+    public SubscriptionListener getPublisher() {
+        return publisher;
+    }
+
+    private void notifyListeners(Consumer<SubscriptionListener> notification) {
+        for (SubscriptionListener listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                log.log(WARNING, "Subscription listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    private void doExpire(Integer subscriptionId) {
+        if (!subscriptionDao.expireIfNotExpired(subscriptionId, Instant.now(clock))) {
+            subscriptionDao.findById(subscriptionId)
+                    .orElseThrow(IllegalArgumentException::new);
             throw new SubscriptionException(String.format("Subscription %d has already expired", subscriptionId));
         }
-        subscription.setStatus(Status.EXPIRED);
-        subscription.setExpirationDate(Instant.now(clock));
-        subscriptionDao.update(subscription);
+    }
+
+    private void measure(String operation, Integer subscriptionId, Runnable action) {
+        measure(operation, null, subscriptionId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T measure(String operation, Integer userId, Integer subscriptionId, Supplier<T> action) {
+        var metrics = Metrics.registry();
+        var name = METRIC_PREFIX + operation;
+        var event = new ServiceOperationEvent();
+        event.begin();
+        var start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            failure = e;
+            metrics.recordError(name);
+            throw e;
+        } finally {
+            metrics.recordLatency(name, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.userId = userId == null ? 0 : userId;
+                event.subscriptionId = subscriptionId == null ? 0 : subscriptionId;
+                event.outcome = Outcome.of(failure);
+                event.commit();
+            }
+        }
+    }
+
+    private record PendingChunk(List<Integer> indexes, List<CreateSubscriptionDto> dtos) {
+
+        private PendingChunk(int capacity) {
+            this(new ArrayList<>(capacity), new ArrayList<>(capacity));
+        }
+    }
+
+    private record UpsertKey(Integer userId, String name) {
+
+        private static UpsertKey of(Subscription subscription) {
+            return new UpsertKey(subscription.getUserId(), subscription.getName());
+        }
     }
 }
@@ -0,0 +1,99 @@
+package com.dmdev.service;
+
+import com.dmdev.cache.CacheStats;
+import com.dmdev.cache.LoadingCache;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.ExpirationBucket;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.PropertiesUtil;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SubscriptionStatistics implements SubscriptionListener {
+
+    private static final String TTL_KEY = "service.statistics.ttl-ms";
+    private static final int MAXIMUM_SIZE = 64;
+    private static final long NEVER = Long.MIN_VALUE;
+    private static final SubscriptionFilter ACTIVE = SubscriptionFilter.builder()
+            .status(Status.ACTIVE)
+            .build();
+
+    private final SubscriptionDao subscriptionDao;
+    private final Clock clock;
+    private final LoadingCache<Query, List<?>> cache;
+    private final long ttlMillis;
+    private final AtomicLong lastInvalidation = new AtomicLong(NEVER);
+
+    public SubscriptionStatistics(SubscriptionDao subscriptionDao, Clock clock, Duration ttl) {
+        this.subscriptionDao = subscriptionDao;
+        this.clock = clock;
+        this.cache = new LoadingCache<>(MAXIMUM_SIZE, ttl);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public static SubscriptionStatistics create(SubscriptionDao subscriptionDao) {
+        return new SubscriptionStatistics(
+                subscriptionDao,
+                Clock.systemUTC(),
+                Duration.ofMillis(Long.parseLong(PropertiesUtil.get(TTL_KEY, "5000"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<SubscriptionCount> countByStatusAndProvider() {
+        return (List<SubscriptionCount>) cache.get(new Query(null, null), query ->
+                List.copyOf(subscriptionDao.countByStatusAndProvider(SubscriptionFilter.empty())));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<ExpirationBucket> countActiveExpiringWithin(Duration window, Duration bucketSize) {
+        var buckets = Math.toIntExact(divideCeil(window.toNanos(), bucketSize.toNanos()));
+        return (List<ExpirationBucket>) cache.get(new Query(window, bucketSize), query ->
+                List.copyOf(subscriptionDao.countByExpiration(ACTIVE, clock.instant(), bucketSize, buckets)));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void onUpserted(Subscription subscription) {
+        markStale();
+    }
+
+    @Override
+    public void onCanceled(Integer subscriptionId) {
+        markStale();
+    }
+
+    @Override
+    public void onExpired(Integer subscriptionId) {
+        markStale();
+    }
+
+    private void markStale() {
+        var now = clock.millis();
+        var previous = lastInvalidation.get();
+        if (previous != NEVER && now - previous < ttlMillis) {
+            return;
+        }
+        if (lastInvalidation.compareAndSet(previous, now)) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static long divideCeil(long dividend, long divisor) {
+        if (divisor <= 0) {
+            throw new IllegalArgumentException("Bucket size must be positive: " + Duration.ofNanos(divisor));
+        }
+        return Math.max(1, -Math.floorDiv(-dividend, divisor));
+    }
+
+    private record Query(Duration window, Duration bucketSize) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.dmdev.service;
+
+public enum UpsertMode {
+    READ_THEN_WRITE, NATIVE
+}
@@ -1,10 +1,17 @@
 package com.dmdev.util;
 
+import com.dmdev.jfr.ConnectionAcquireEvent;
+import com.dmdev.jfr.Outcome;
+import com.dmdev.metrics.Metrics;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 
 @UtilityClass
 public class ConnectionManager {
@@ -13,9 +20,31 @@ public class ConnectionManager {
     private static final String USER_KEY = "db.user";
     private static final String PASSWORD_KEY = "db.password";
     private static final String DRIVER_KEY = "db.driver";
+    private static final String POOL_MIN_SIZE_KEY = "db.pool.min-size";
+    private static final String POOL_MAX_SIZE_KEY = "db.pool.max-size";
+    private static final String POOL_ACQUIRE_TIMEOUT_KEY = "db.pool.acquire-timeout-ms";
+    private static final String POOL_IDLE_TIMEOUT_KEY = "db.pool.idle-timeout-ms";
+    private static final String POOL_VALIDATION_TIMEOUT_KEY = "db.pool.validation-timeout-ms";
+    private static final String POOL_LEAK_DETECTION_THRESHOLD_KEY = "db.pool.leak-detection-threshold-ms";
+    private static final String POOL_HOUSEKEEPING_PERIOD_KEY = "db.pool.housekeeping-period-ms";
+    private static final String POOL_STATEMENT_CACHE_SIZE_KEY = "db.pool.statement-cache-size";
+    private static final String REPLICA_URLS_KEY = "db.replica.urls";
+    private static final String REPLICA_USER_KEY = "db.replica.user";
+    private static final String REPLICA_PASSWORD_KEY = "db.replica.password";
+    private static final String REPLICA_BALANCING_KEY = "db.replica.balancing";
+    private static final String REPLICA_STICKINESS_KEY = "db.replica.sticky-after-write-ms";
+    private static final String SHARD_URLS_KEY = "db.shard.urls";
+    private static final String SHARD_USER_KEY = "db.shard.user";
+    private static final String SHARD_PASSWORD_KEY = "db.shard.password";
+    private static final String ACQUIRE_METRIC = "connection.acquire";
+
+    private static final ConnectionRouter router;
+    private static volatile List<ConnectionRouter> shards;
 
     static {
         loadDriver();
+        router = createRouter();
+        Runtime.getRuntime().addShutdownHook(new Thread(router::close, "connection-pool-shutdown"));
     }
 
     @SneakyThrows
@@ -23,11 +52,117 @@ public class ConnectionManager {
         Class.forName(PropertiesUtil.get(DRIVER_KEY));
     }
 
-    @SneakyThrows
+    private static ConnectionRouter createRouter() {
+        var replicaUser = PropertiesUtil.get(REPLICA_USER_KEY, PropertiesUtil.get(USER_KEY));
+        var replicaPassword = PropertiesUtil.get(REPLICA_PASSWORD_KEY, PropertiesUtil.get(PASSWORD_KEY));
+        List<ConnectionPool> replicas = Arrays.stream(PropertiesUtil.get(REPLICA_URLS_KEY, "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> createPool(url, replicaUser, replicaPassword))
+                .toList();
+        return new ConnectionRouter(
+                createPool(PropertiesUtil.get(URL_KEY), PropertiesUtil.get(USER_KEY), PropertiesUtil.get(PASSWORD_KEY)),
+                replicas,
+                ReplicaBalancing.valueOf(PropertiesUtil.get(REPLICA_BALANCING_KEY, ReplicaBalancing.ROUND_ROBIN.name())),
+                millis(REPLICA_STICKINESS_KEY, "0"));
+    }
+
+    private static ConnectionPool createPool(String url, String user, String password) {
+        return new ConnectionPool(PoolConfig.builder()
+                .url(url)
+                .user(user)
+                .password(password)
+                .minSize(Integer.parseInt(PropertiesUtil.get(POOL_MIN_SIZE_KEY, "2")))
+                .maxSize(Integer.parseInt(PropertiesUtil.get(POOL_MAX_SIZE_KEY, "10")))
+                .acquireTimeout(millis(POOL_ACQUIRE_TIMEOUT_KEY, "30000"))
+                .idleTimeout(millis(POOL_IDLE_TIMEOUT_KEY, "600000"))
+                .validationTimeout(millis(POOL_VALIDATION_TIMEOUT_KEY, "5000"))
+                .leakDetectionThreshold(millis(POOL_LEAK_DETECTION_THRESHOLD_KEY, "0"))
+                .housekeepingPeriod(millis(POOL_HOUSEKEEPING_PERIOD_KEY, "5000"))
+                .statementCacheSize(Integer.parseInt(PropertiesUtil.get(POOL_STATEMENT_CACHE_SIZE_KEY, "64")))
+                .build());
+    }
+
+    private static Duration millis(String key, String defaultValue) {
+        return Duration.ofMillis(Long.parseLong(PropertiesUtil.get(key, defaultValue)));
+    }
+
     public static Connection get() {
-        return DriverManager.getConnection(
-                PropertiesUtil.get(URL_KEY),
-                PropertiesUtil.get(USER_KEY),
-                PropertiesUtil.get(PASSWORD_KEY));
+        return acquire(router::write);
+    }
+
+    public static Connection getForRead() {
+        return acquire(router::read);
+    }
+
+    public static <T> T readFromPrimary(Supplier<T> action) {
+        return router.readFromPrimary(action);
+    }
+
+    @SneakyThrows
+    private static Connection acquire(ConnectionSource source) {
+        var transactionConnection = TransactionManager.current();
+        if (transactionConnection != null) {
+            return transactionConnection;
+        }
+        var metrics = Metrics.registry();
+        var event = new ConnectionAcquireEvent();
+        event.begin();
+        var start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return source.getConnection();
+        } catch (Exception e) {
+            failure = e;
+            metrics.recordError(ACQUIRE_METRIC);
+            throw e;
+        } finally {
+            metrics.recordLatency(ACQUIRE_METRIC, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = Outcome.of(failure);
+                event.commit();
+            }
+        }
+    }
+
+    public static List<ConnectionRouter> shards() {
+        var result = shards;
+        if (result == null) {
+            synchronized (ConnectionManager.class) {
+                result = shards;
+                if (result == null) {
+                    shards = result = createShards();
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<ConnectionRouter> createShards() {
+        var shardUser = PropertiesUtil.get(SHARD_USER_KEY, PropertiesUtil.get(USER_KEY));
+        var shardPassword = PropertiesUtil.get(SHARD_PASSWORD_KEY, PropertiesUtil.get(PASSWORD_KEY));
+        List<ConnectionRouter> routers = Arrays.stream(PropertiesUtil.get(SHARD_URLS_KEY, "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> new ConnectionRouter(createPool(url, shardUser, shardPassword), List.of(),
+                        ReplicaBalancing.ROUND_ROBIN, Duration.ZERO))
+                .toList();
+        routers.forEach(shard -> Runtime.getRuntime().addShutdownHook(new Thread(shard::close, "shard-pool-shutdown")));
+        return routers;
+    }
+
+    public static PoolStats stats() {
+        return router.getPrimary().stats();
+    }
+
+    public static int maxPoolSize() {
+        return router.getPrimary().getMaxSize();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+
+        Connection getConnection() throws SQLException;
     }
 }
@@ -0,0 +1,462 @@
+package com.dmdev.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.System.Logger.Level.DEBUG;
+import static java.lang.System.Logger.Level.WARNING;
+
+public class ConnectionPool implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(ConnectionPool.class.getName());
+
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final PoolConfig config;
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<Lease> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ConnectionPool(PoolConfig config) {
+        if (config.getMaxSize() < 1 || config.getMinSize() < 0 || config.getMinSize() > config.getMaxSize()) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid pool size: min %d, max %d", config.getMinSize(), config.getMaxSize()));
+        }
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var period = config.getHousekeepingPeriod().toMillis();
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        var start = System.nanoTime();
+        acquirePermit();
+        recordWait(System.nanoTime() - start);
+
+        try {
+            var pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(openPhysical());
+            }
+            var lease = new Lease(pooled, config.getLeakDetectionThreshold().isZero()
+                    ? null
+                    : new Throwable("Connection borrowed by " + Thread.currentThread().getName()));
+            borrowed.add(lease);
+            return lease.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats stats() {
+        var active = borrowed.size();
+        var idleCount = idle.size();
+        return new PoolStats(
+                active + idleCount,
+                active,
+                idleCount,
+                permits.getQueueLength(),
+                acquired.sum(),
+                timeouts.sum(),
+                Duration.ofNanos(totalWaitNanos.sum()),
+                Duration.ofNanos(maxWaitNanos.get()),
+                statementCacheHits.sum(),
+                statementCacheMisses.sum(),
+                statementCacheEvictions.sum());
+    }
+
+    public int getMaxSize() {
+        return config.getMaxSize();
+    }
+
+    public int getInFlightCount() {
+        return borrowed.size() + permits.getQueueLength();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closeQuietly();
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        var timeout = config.getAcquireTimeout();
+        try {
+            if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException(String.format(
+                        "Connection is not available, request timed out after %d ms", timeout.toMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        acquired.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.lastUsedNanos < VALIDATION_BYPASS_NANOS || pooled.isValid()) {
+                return pooled;
+            }
+            log.log(DEBUG, "Evicting broken connection on borrow");
+            pooled.closeQuietly();
+        }
+        return null;
+    }
+
+    private Connection openPhysical() throws SQLException {
+        return DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+    }
+
+    private void release(Lease lease) {
+        borrowed.remove(lease);
+        lease.closeStatements();
+        var pooled = lease.pooled;
+        try {
+            if (closed || !pooled.reset()) {
+                pooled.closeQuietly();
+            } else {
+                pooled.lastUsedNanos = System.nanoTime();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void houseKeep() {
+        try {
+            evictIdle();
+            fillToMinimum();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            log.log(WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void evictIdle() {
+        var idleTimeoutNanos = config.getIdleTimeout().toNanos();
+        if (idleTimeoutNanos <= 0) {
+            return;
+        }
+        var now = System.nanoTime();
+        for (Iterator<PooledConnection> iterator = idle.descendingIterator(); iterator.hasNext(); ) {
+            var pooled = iterator.next();
+            if (idle.size() + borrowed.size() <= config.getMinSize()) {
+                return;
+            }
+            if (now - pooled.lastUsedNanos > idleTimeoutNanos && idle.remove(pooled)) {
+                pooled.closeQuietly();
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && idle.size() + borrowed.size() < config.getMinSize()) {
+            try {
+                idle.offerLast(new PooledConnection(openPhysical()));
+            } catch (SQLException e) {
+                log.log(WARNING, "Unable to open connection while filling the pool", e);
+                return;
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        var thresholdNanos = config.getLeakDetectionThreshold().toNanos();
+        if (thresholdNanos <= 0) {
+            return;
+        }
+        var now = System.nanoTime();
+        for (Lease lease : borrowed) {
+            if (!lease.leakReported && now - lease.borrowedNanos > thresholdNanos) {
+                lease.leakReported = true;
+                log.log(WARNING, String.format("Connection leak detected, connection borrowed %d ms ago",
+                        TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedNanos)), lease.borrowerTrace);
+            }
+        }
+    }
+
+    private class PooledConnection {
+
+        private final Connection connection;
+        private final int defaultIsolation;
+        private final Map<StatementKey, PreparedStatement> statements;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private PooledConnection(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.defaultIsolation = connection.getTransactionIsolation();
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                    if (size() > config.getStatementCacheSize()) {
+                        statementCacheEvictions.increment();
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private PreparedStatement checkoutStatement(StatementKey key) throws SQLException {
+            var statement = statements.remove(key);
+            if (statement != null) {
+                statementCacheHits.increment();
+                return statement;
+            }
+            statementCacheMisses.increment();
+            return key.autoGeneratedKeys() == null
+                    ? connection.prepareStatement(key.sql())
+                    : connection.prepareStatement(key.sql(), key.autoGeneratedKeys());
+        }
+
+        private void returnStatement(StatementKey key, PreparedStatement statement) {
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.setFetchSize(0);
+                statement.setMaxRows(0);
+                statement.setMaxFieldSize(0);
+                statement.setQueryTimeout(0);
+            } catch (SQLException e) {
+                closeQuietly(statement);
+                return;
+            }
+            var previous = statements.put(key, statement);
+            if (previous != null) {
+                closeQuietly(previous);
+            }
+        }
+
+        private void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                log.log(DEBUG, "Unable to close statement", e);
+            }
+        }
+
+        private boolean isValid() {
+            try {
+                var seconds = (int) Math.max(1, config.getValidationTimeout().toSeconds());
+                return connection.isValid(seconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private boolean reset() {
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                if (connection.isReadOnly()) {
+                    connection.setReadOnly(false);
+                }
+                if (connection.getTransactionIsolation() != defaultIsolation) {
+                    connection.setTransactionIsolation(defaultIsolation);
+                }
+                return true;
+            } catch (SQLException e) {
+                log.log(DEBUG, "Unable to reset connection state, discarding it", e);
+                return false;
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.log(DEBUG, "Unable to close connection", e);
+            }
+        }
+    }
+
+    private class Lease implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private final Throwable borrowerTrace;
+        private final long borrowedNanos = System.nanoTime();
+        private final Connection proxy;
+        private final List<CachedStatement> openStatements = new ArrayList<>();
+        private volatile boolean released;
+        private volatile boolean leakReported;
+
+        private Lease(PooledConnection pooled, Throwable borrowerTrace) {
+            this.pooled = pooled;
+            this.borrowerTrace = borrowerTrace;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.connection;
+                case "prepareStatement":
+                    var key = StatementKey.of(args);
+                    if (key != null && !released && config.getStatementCacheSize() > 0) {
+                        var statement = new CachedStatement(this, key, pooled.checkoutStatement(key));
+                        openStatements.add(statement);
+                        return statement.proxy;
+                    }
+                    return delegate(method, args);
+                default:
+                    return delegate(method, args);
+            }
+        }
+
+        private Object delegate(Method method, Object[] args) throws Throwable {
+            if (released) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void closeStatements() {
+            for (CachedStatement statement : openStatements.toArray(CachedStatement[]::new)) {
+                statement.close();
+            }
+        }
+    }
+
+    private class CachedStatement implements InvocationHandler {
+
+        private final Lease lease;
+        private final StatementKey key;
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean closed;
+
+        private CachedStatement(Lease lease, StatementKey key, PreparedStatement statement) {
+            this.lease = lease;
+            this.key = key;
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return lease.proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + statement;
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                lease.openStatements.remove(this);
+                lease.pooled.returnStatement(key, statement);
+            }
+        }
+    }
+
+    private record StatementKey(String sql, Integer autoGeneratedKeys) {
+
+        private static StatementKey of(Object[] args) {
+            if (args.length == 1) {
+                return new StatementKey((String) args[0], null);
+            }
+            if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                return new StatementKey((String) args[0], autoGeneratedKeys);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.dmdev.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ConnectionRouter implements AutoCloseable {
+
+    private final ConnectionPool primary;
+    private final List<ConnectionPool> replicas;
+    private final ReplicaBalancing balancing;
+    private final long stickinessNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+    private final ThreadLocal<Integer> primaryReads = ThreadLocal.withInitial(() -> 0);
+
+    public ConnectionRouter(ConnectionPool primary, List<ConnectionPool> replicas,
+                            ReplicaBalancing balancing, Duration stickiness) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+        this.stickinessNanos = stickiness.toNanos();
+    }
+
+    public Connection write() throws SQLException {
+        if (stickinessNanos > 0) {
+            lastWriteNanos.set(System.nanoTime());
+        }
+        return primary.getConnection();
+    }
+
+    public Connection read() throws SQLException {
+        return readsFromPrimary()
+                ? primary.getConnection()
+                : chooseReplica().getConnection();
+    }
+
+    public <T> T readFromPrimary(Supplier<T> action) {
+        primaryReads.set(primaryReads.get() + 1);
+        try {
+            return action.get();
+        } finally {
+            var depth = primaryReads.get() - 1;
+            if (depth == 0) {
+                primaryReads.remove();
+            } else {
+                primaryReads.set(depth);
+            }
+        }
+    }
+
+    public ConnectionPool getPrimary() {
+        return primary;
+    }
+
+    public List<ConnectionPool> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+        replicas.forEach(ConnectionPool::close);
+    }
+
+    private boolean readsFromPrimary() {
+        if (replicas.isEmpty() || primaryReads.get() > 0) {
+            return true;
+        }
+        var lastWrite = lastWriteNanos.get();
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < stickinessNanos) {
+            return true;
+        }
+        lastWriteNanos.remove();
+        return false;
+    }
+
+    private ConnectionPool chooseReplica() {
+        if (replicas.size() == 1) {
+            return replicas.get(0);
+        }
+        return switch (balancing) {
+            case ROUND_ROBIN -> replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            case LEAST_IN_FLIGHT -> leastInFlight();
+        };
+    }
+
+    private ConnectionPool leastInFlight() {
+        var offset = Math.floorMod(next.getAndIncrement(), replicas.size());
+        var best = replicas.get(offset);
+        var bestInFlight = best.getInFlightCount();
+        for (int i = 1; i < replicas.size() && bestInFlight > 0; i++) {
+            var candidate = replicas.get((offset + i) % replicas.size());
+            var inFlight = candidate.getInFlightCount();
+            if (inFlight < bestInFlight) {
+                best = candidate;
+                bestInFlight = inFlight;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,30 @@
+package com.dmdev.util;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class PoolConfig {
+    String url;
+    String user;
+    String password;
+    @Builder.Default
+    int minSize = 0;
+    @Builder.Default
+    int maxSize = 10;
+    @Builder.Default
+    Duration acquireTimeout = Duration.ofSeconds(30);
+    @Builder.Default
+    Duration idleTimeout = Duration.ofMinutes(10);
+    @Builder.Default
+    Duration validationTimeout = Duration.ofSeconds(5);
+    @Builder.Default
+    Duration leakDetectionThreshold = Duration.ZERO;
+    @Builder.Default
+    Duration housekeepingPeriod = Duration.ofSeconds(5);
+    @Builder.Default
+    int statementCacheSize = 0;
+}
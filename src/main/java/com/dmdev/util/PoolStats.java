@@ -0,0 +1,33 @@
+package com.dmdev.util;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class PoolStats {
+    int total;
+    int active;
+    int idle;
+    int waiters;
+    long acquired;
+    long timeouts;
+    Duration totalWaitTime;
+    Duration maxWaitTime;
+    long statementCacheHits;
+    long statementCacheMisses;
+    long statementCacheEvictions;
+
+    public Duration getAverageWaitTime() {
+        return acquired == 0
+                ? Duration.ZERO
+                : totalWaitTime.dividedBy(acquired);
+    }
+
+    public double getStatementCacheHitRatio() {
+        var lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0
+                ? 0
+                : (double) statementCacheHits / lookups;
+    }
+}
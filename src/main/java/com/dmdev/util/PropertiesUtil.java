@@ -24,4 +24,8 @@ public class PropertiesUtil {
     public static String get(String key) {
         return properties.getProperty(key);
     }
+
+    public static String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
 }
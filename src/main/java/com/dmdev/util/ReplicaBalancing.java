@@ -0,0 +1,6 @@
+package com.dmdev.util;
+
+public enum ReplicaBalancing {
+    ROUND_ROBIN,
+    LEAST_IN_FLIGHT
+}
@@ -0,0 +1,168 @@
+package com.dmdev.util;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@UtilityClass
+public class TransactionManager {
+
+    private static final ThreadLocal<Map<Object, Transaction>> CURRENT = new ThreadLocal<>();
+    private static final Object DEFAULT = new Object();
+
+    public static <T> T inTransaction(Supplier<T> work) {
+        return inTransaction(TransactionOptions.defaults(), work);
+    }
+
+    public static <T> T inTransaction(TransactionOptions options, Supplier<T> work) {
+        ConnectionSource source = options.isReadOnly() ? ConnectionManager::getForRead : ConnectionManager::get;
+        return inTransaction(DEFAULT, source, options, true, work);
+    }
+
+    public static <T> T inTransaction(ConnectionRouter router, TransactionOptions options, Supplier<T> work) {
+        ConnectionSource source = options.isReadOnly() ? router::read : router::write;
+        return inTransaction(router, source, options, false, work);
+    }
+
+    public static boolean isActive() {
+        return current() != null;
+    }
+
+    public static Connection current(ConnectionRouter router) throws SQLException {
+        var transaction = find(router);
+        return transaction == null ? null : transaction.connection();
+    }
+
+    static Connection current() {
+        var transaction = find(DEFAULT);
+        return transaction == null ? null : transaction.bound;
+    }
+
+    @SneakyThrows
+    private static <T> T inTransaction(Object key, ConnectionSource source, TransactionOptions options,
+                                       boolean eager, Supplier<T> work) {
+        if (find(key) != null) {
+            return work.get();
+        }
+        try (var transaction = new Transaction(source, options)) {
+            if (eager) {
+                transaction.connection();
+            }
+            var transactions = CURRENT.get();
+            if (transactions == null) {
+                transactions = new HashMap<>();
+                CURRENT.set(transactions);
+            }
+            transactions.put(key, transaction);
+            try {
+                T result = work.get();
+                transaction.commit();
+                return result;
+            } catch (Throwable e) {
+                transaction.rollback(e);
+                throw e;
+            } finally {
+                transactions.remove(key);
+                if (transactions.isEmpty()) {
+                    CURRENT.remove();
+                }
+            }
+        }
+    }
+
+    private static Transaction find(Object key) {
+        var transactions = CURRENT.get();
+        return transactions == null ? null : transactions.get(key);
+    }
+
+    private static void begin(Connection connection, TransactionOptions options) throws SQLException {
+        if (options.isReadOnly()) {
+            connection.setReadOnly(true);
+        }
+        if (options.getIsolation() != IsolationLevel.DEFAULT) {
+            connection.setTransactionIsolation(options.getIsolation().getLevel());
+        }
+        connection.setAutoCommit(false);
+    }
+
+    private static Connection bind(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+
+        Connection open() throws SQLException;
+    }
+
+    private static class Transaction implements AutoCloseable {
+
+        private final ConnectionSource source;
+        private final TransactionOptions options;
+        private Connection connection;
+        private Connection bound;
+
+        private Transaction(ConnectionSource source, TransactionOptions options) {
+            this.source = source;
+            this.options = options;
+        }
+
+        private Connection connection() throws SQLException {
+            if (connection == null) {
+                var opened = source.open();
+                try {
+                    begin(opened, options);
+                } catch (SQLException e) {
+                    opened.close();
+                    throw e;
+                }
+                connection = opened;
+                bound = bind(opened);
+            }
+            return bound;
+        }
+
+        private void commit() throws SQLException {
+            if (connection != null) {
+                connection.commit();
+            }
+        }
+
+        private void rollback(Throwable cause) {
+            if (connection == null) {
+                return;
+            }
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                cause.addSuppressed(e);
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
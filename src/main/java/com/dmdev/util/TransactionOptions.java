@@ -0,0 +1,20 @@
+package com.dmdev.util;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class TransactionOptions {
+    @Builder.Default
+    IsolationLevel isolation = IsolationLevel.DEFAULT;
+    boolean readOnly;
+
+    public static TransactionOptions defaults() {
+        return builder().build();
+    }
+
+    public static TransactionOptions readOnly() {
+        return builder().readOnly(true).build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.dmdev.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoadingCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final LoadingCache<Integer, String> cache = new LoadingCache<>(2, Duration.ofSeconds(10), ticker::get);
+
+    @Test
+    void loadOnMissAndHitAfterwards() {
+        var loads = new AtomicInteger();
+
+        cache.get(1, key -> "value" + loads.incrementAndGet());
+        String actualResult = cache.get(1, key -> "value" + loads.incrementAndGet());
+
+        assertThat(actualResult).isEqualTo("value1");
+        var stats = cache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getLoadCount()).isEqualTo(1);
+        assertThat(stats.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void evictLeastRecentlyUsedEntry() {
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.getIfPresent(1);
+
+        cache.put(3, "three");
+
+        assertNull(cache.getIfPresent(2));
+        assertThat(cache.getIfPresent(1)).isEqualTo("one");
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void expireEntryAfterTtl() {
+        cache.put(1, "one");
+
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    void invalidateRemovesEntry() {
+        cache.put(1, "one");
+
+        cache.invalidate(1);
+
+        assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    void propagateLoaderFailure() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1, key -> {
+            throw new IllegalStateException();
+        }));
+
+        assertThat(cache.stats().getLoadFailureCount()).isEqualTo(1);
+        assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    void loadSameKeyOnceForConcurrentCallers() throws Exception {
+        var loads = new AtomicInteger();
+        var loaderStarted = new CountDownLatch(1);
+        var releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get(1, key -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "one";
+            }));
+            loaderStarted.await();
+            Future<String> second = executor.submit(() -> cache.get(1, key -> "other" + loads.incrementAndGet()));
+            Thread.sleep(50);
+            releaseLoader.countDown();
+
+            assertThat(first.get()).isEqualTo("one");
+            assertThat(second.get()).isEqualTo("one");
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
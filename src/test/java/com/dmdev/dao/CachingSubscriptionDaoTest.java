@@ -0,0 +1,169 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.TransactionOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.entity.Status.CANCELED;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachingSubscriptionDaoTest {
+
+    @Mock
+    private SubscriptionDao subscriptionDao;
+    private CachingSubscriptionDao cachingSubscriptionDao;
+
+    @BeforeEach
+    void init() {
+        cachingSubscriptionDao = new CachingSubscriptionDao(subscriptionDao, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void findByIdHitsDatabaseOnce() {
+        Subscription subscription = getSubscription();
+        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(subscription.getId());
+
+        cachingSubscriptionDao.findById(subscription.getId());
+        Optional<Subscription> actualResult = cachingSubscriptionDao.findById(subscription.getId());
+
+        assertThat(actualResult).contains(subscription);
+        verify(subscriptionDao).findById(subscription.getId());
+        assertThat(cachingSubscriptionDao.getByIdStats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdReturnsCopy() {
+        Subscription subscription = getSubscription();
+        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(subscription.getId());
+
+        cachingSubscriptionDao.findById(subscription.getId()).get().setStatus(CANCELED);
+
+        assertThat(cachingSubscriptionDao.findById(subscription.getId()).get().getStatus()).isEqualTo(ACTIVE);
+    }
+
+    @Test
+    void updateInvalidatesCachedEntries() {
+        Subscription subscription = getSubscription();
+        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(subscription.getId());
+        doReturn(List.of(subscription)).when(subscriptionDao).findByUserId(subscription.getUserId());
+        doReturn(subscription).when(subscriptionDao).update(subscription);
+        cachingSubscriptionDao.findById(subscription.getId());
+        cachingSubscriptionDao.findByUserId(subscription.getUserId());
+
+        cachingSubscriptionDao.update(subscription);
+        cachingSubscriptionDao.findById(subscription.getId());
+        cachingSubscriptionDao.findByUserId(subscription.getUserId());
+
+        verify(subscriptionDao, times(2)).findById(subscription.getId());
+        verify(subscriptionDao, times(2)).findByUserId(subscription.getUserId());
+    }
+
+    @Test
+    void updateInvalidatesCachedPreviousUserWithoutLoadingRow() {
+        Subscription previous = getSubscription();
+        Subscription moved = getSubscription().setUserId(12);
+        doReturn(Optional.of(previous)).when(subscriptionDao).findById(previous.getId());
+        doReturn(List.of(previous)).when(subscriptionDao).findByUserId(previous.getUserId());
+        doReturn(moved).when(subscriptionDao).update(moved);
+        cachingSubscriptionDao.findById(previous.getId());
+        cachingSubscriptionDao.findByUserId(previous.getUserId());
+
+        cachingSubscriptionDao.update(moved);
+        cachingSubscriptionDao.findByUserId(previous.getUserId());
+
+        verify(subscriptionDao).findById(previous.getId());
+        verify(subscriptionDao, times(2)).findByUserId(previous.getUserId());
+    }
+
+    @Test
+    void writesDoNotCountAsMisses() {
+        Subscription subscription = getSubscription();
+        doReturn(true).when(subscriptionDao).cancelIfActive(subscription.getId());
+        doReturn(subscription).when(subscriptionDao).update(subscription);
+
+        cachingSubscriptionDao.cancelIfActive(subscription.getId());
+        cachingSubscriptionDao.update(subscription);
+
+        assertThat(cachingSubscriptionDao.getByIdStats().getMissCount()).isZero();
+        verify(subscriptionDao, never()).findById(subscription.getId());
+    }
+
+    @Test
+    void invalidateAgainAfterTransactionEnds() {
+        Subscription subscription = getSubscription();
+        doAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get())
+                .when(subscriptionDao).inTransaction(any(), any());
+        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(subscription.getId());
+        doReturn(subscription).when(subscriptionDao).update(subscription);
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            cachingSubscriptionDao.inTransaction(TransactionOptions.defaults(), () -> {
+                cachingSubscriptionDao.update(subscription);
+                return CompletableFuture.supplyAsync(() -> cachingSubscriptionDao.findById(subscription.getId()), executor).join();
+            });
+        } finally {
+            executor.shutdown();
+        }
+
+        cachingSubscriptionDao.findById(subscription.getId());
+
+        verify(subscriptionDao, times(2)).findById(subscription.getId());
+    }
+
+    @Test
+    void findByUserIdReturnsMutableList() {
+        Subscription subscription = getSubscription();
+        doReturn(List.of(subscription)).when(subscriptionDao).findByUserId(subscription.getUserId());
+
+        var subscriptions = cachingSubscriptionDao.findByUserId(subscription.getUserId());
+        subscriptions.clear();
+
+        assertThat(cachingSubscriptionDao.findByUserId(subscription.getUserId())).hasSize(1);
+    }
+
+    @Test
+    void insertInvalidatesUserEntries() {
+        Subscription subscription = getSubscription();
+        doReturn(List.of()).when(subscriptionDao).findByUserId(subscription.getUserId());
+        doReturn(subscription).when(subscriptionDao).insert(subscription);
+        cachingSubscriptionDao.findByUserId(subscription.getUserId());
+
+        cachingSubscriptionDao.insert(subscription);
+        cachingSubscriptionDao.findByUserId(subscription.getUserId());
+
+        verify(subscriptionDao, times(2)).findByUserId(subscription.getUserId());
+    }
+
+    private static Subscription getSubscription() {
+        return Subscription.builder()
+                .id(1)
+                .userId(11)
+                .name("Music")
+                .provider(APPLE)
+                .expirationDate(Instant.now().plus(Duration.ofDays(10)).truncatedTo(SECONDS))
+                .status(ACTIVE)
+                .build();
+    }
+}
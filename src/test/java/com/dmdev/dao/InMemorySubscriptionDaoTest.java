@@ -0,0 +1,144 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.util.TransactionOptions;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.entity.Status.CANCELED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemorySubscriptionDaoTest {
+
+    private final InMemorySubscriptionDao dao = new InMemorySubscriptionDao();
+
+    @Test
+    void insertAndFindByUserId() {
+        var subscription1 = dao.insert(getSubscription(1, "Music"));
+        var subscription2 = dao.insert(getSubscription(1, "Map"));
+        dao.insert(getSubscription(2, "Move"));
+
+        assertThat(dao.findByUserId(1)).containsExactlyInAnyOrder(subscription1, subscription2);
+        assertThat(dao.findById(subscription1.getId())).contains(subscription1);
+        assertThat(dao.findAll()).hasSize(3);
+    }
+
+    @Test
+    void returnCopies() {
+        var subscription = dao.insert(getSubscription(1, "Music"));
+
+        dao.findById(subscription.getId()).get().setStatus(CANCELED);
+        subscription.setName("Map");
+
+        assertThat(dao.findById(subscription.getId()).get())
+                .extracting(Subscription::getName, Subscription::getStatus)
+                .containsExactly("Music", ACTIVE);
+    }
+
+    @Test
+    void rejectDuplicateKey() {
+        dao.insert(getSubscription(1, "Music"));
+
+        assertThrows(IllegalStateException.class, () -> dao.insert(getSubscription(1, "Music")));
+    }
+
+    @Test
+    void moveBetweenUsersOnUpdate() {
+        var subscription = dao.insert(getSubscription(1, "Music"));
+
+        dao.update(subscription.setUserId(2));
+
+        assertThat(dao.findByUserId(1)).isEmpty();
+        assertThat(dao.findByUserId(2)).containsExactly(subscription);
+    }
+
+    @Test
+    void deleteRemovesFromIndex() {
+        var subscription = dao.insert(getSubscription(1, "Music"));
+
+        assertTrue(dao.delete(subscription.getId()));
+        assertFalse(dao.delete(subscription.getId()));
+        assertThat(dao.findByUserId(1)).isEmpty();
+    }
+
+    @Test
+    void rollbackFailedTransaction() {
+        var existing = dao.insert(getSubscription(1, "Music"));
+
+        assertThrows(IllegalStateException.class, () -> dao.inTransaction(TransactionOptions.defaults(), () -> {
+            dao.update(dao.findById(existing.getId()).get().setStatus(CANCELED));
+            dao.insert(getSubscription(2, "Music"));
+            return dao.insert(getSubscription(1, "Music"));
+        }));
+
+        assertThat(dao.findAll()).containsExactly(existing);
+        assertThat(dao.findByUserId(2)).isEmpty();
+    }
+
+    @Test
+    void upsertByKeyUnderContention() throws Exception {
+        var executor = Executors.newFixedThreadPool(8);
+        List<Callable<Subscription>> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            var userId = i % 10;
+            tasks.add(() -> dao.upsertByKey(getSubscription(userId, "Music")));
+        }
+
+        List<Future<Subscription>> futures = executor.invokeAll(tasks);
+        executor.shutdown();
+
+        for (Future<Subscription> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(dao.findAll()).hasSize(10);
+        assertThat(dao.findByUserId(3)).hasSize(1);
+    }
+
+    @Test
+    void runSubscriptionService() {
+        var subscriptionService = new SubscriptionService(
+                dao, CreateSubscriptionMapper.getInstance(),
+                CreateSubscriptionValidator.getInstance(), Clock.systemUTC());
+        var dto = CreateSubscriptionDto.builder()
+                .userId(1)
+                .name("Music")
+                .provider(APPLE.name())
+                .expirationDate(Instant.now().plus(Duration.ofDays(10)).truncatedTo(ChronoUnit.SECONDS))
+                .build();
+
+        var subscription = subscriptionService.upsert(dto);
+        subscriptionService.cancel(subscription.getId());
+
+        assertThat(subscriptionService.upsert(dto).getId()).isEqualTo(subscription.getId());
+        assertThat(dao.findById(subscription.getId()).get().getStatus()).isEqualTo(ACTIVE);
+    }
+
+    private static Subscription getSubscription(Integer userId, String name) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(APPLE)
+                .expirationDate(Instant.now().plus(Duration.ofDays(10)).truncatedTo(ChronoUnit.SECONDS))
+                .status(ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,248 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.dto.UpsertResult;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.util.ConnectionPool;
+import com.dmdev.util.ConnectionRouter;
+import com.dmdev.util.PoolConfig;
+import com.dmdev.util.ReplicaBalancing;
+import com.dmdev.util.TransactionOptions;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.entity.Status.CANCELED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedSubscriptionDaoTest {
+
+    private static final int SHARDS = 3;
+    private static final String CREATE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription
+            (
+                id INT AUTO_INCREMENT PRIMARY KEY ,
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                provider VARCHAR(16) NOT NULL ,
+                expiration_date DATETIME NOT NULL ,
+                status VARCHAR(16) NOT NULL ,
+                UNIQUE (user_id, name)
+            );
+            """;
+
+    private final List<ConnectionRouter> routers = new ArrayList<>();
+    private ShardedSubscriptionDao dao;
+
+    @BeforeEach
+    void init() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            routers.add(createRouter("shard" + shard));
+        }
+        dao = new ShardedSubscriptionDao(routers.stream()
+                .map(SubscriptionDao::new)
+                .toList());
+    }
+
+    @AfterEach
+    void close() {
+        dao.close();
+        routers.forEach(ConnectionRouter::close);
+    }
+
+    @Test
+    void spreadUsersAcrossShardsAndFindAll() {
+        var subscriptions = IntStream.rangeClosed(1, 30)
+                .mapToObj(userId -> dao.insert(getSubscription(userId, "Music")))
+                .toList();
+
+        assertThat(dao.findAll()).containsExactlyInAnyOrderElementsOf(subscriptions);
+        for (ConnectionRouter router : routers) {
+            assertThat(new SubscriptionDao(router).findAll()).isNotEmpty();
+        }
+    }
+
+    @Test
+    void routeByEncodedId() {
+        var subscription = dao.insert(getSubscription(7, "Music"));
+        var other = dao.insert(getSubscription(8, "Music"));
+
+        assertThat(Math.floorMod(subscription.getId(), SHARDS)).isEqualTo(dao.shardOf(7));
+        assertThat(dao.findById(subscription.getId())).contains(subscription);
+        assertThat(dao.findByUserId(7)).containsExactly(subscription);
+        assertThat(dao.findByIds(List.of(subscription.getId(), other.getId())))
+                .containsEntry(subscription.getId(), subscription)
+                .containsEntry(other.getId(), other);
+        assertTrue(dao.delete(subscription.getId()));
+        assertFalse(dao.delete(subscription.getId()));
+        assertThat(dao.findById(subscription.getId())).isEmpty();
+    }
+
+    @Test
+    void updateAndUpsertOnOwningShard() {
+        var subscription = dao.insert(getSubscription(5, "Music"));
+
+        dao.update(subscription.setStatus(CANCELED));
+        var upserted = dao.upsertByKey(getSubscription(5, "Music"));
+
+        assertThat(upserted.getId()).isEqualTo(subscription.getId());
+        assertThat(dao.findById(subscription.getId()).get().getStatus()).isEqualTo(ACTIVE);
+        assertTrue(dao.cancelIfActive(subscription.getId()));
+        assertFalse(dao.cancelIfActive(subscription.getId()));
+    }
+
+    @Test
+    void rejectMoveBetweenShards() {
+        var subscription = dao.insert(getSubscription(1, "Music"));
+        var otherShardUserId = otherShardUserId();
+
+        assertThrows(IllegalArgumentException.class, () -> dao.update(subscription.setUserId(otherShardUserId)));
+    }
+
+    @Test
+    void insertAllAcrossShards() {
+        var subscriptions = dao.insertAll(IntStream.rangeClosed(1, 10)
+                .mapToObj(userId -> getSubscription(userId, "Music"))
+                .toList());
+
+        assertThat(dao.findByUserIds(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10))).hasSize(10);
+        subscriptions.forEach(subscription -> assertThat(dao.findById(subscription.getId())).contains(subscription));
+    }
+
+    @Test
+    void commitAndRollbackSingleShardTransaction() {
+        dao.inTransaction(TransactionOptions.defaults(), () -> {
+            dao.insert(getSubscription(1, "Music"));
+            return dao.insert(getSubscription(1, "Map"));
+        });
+        assertThrows(IllegalStateException.class, () -> dao.inTransaction(TransactionOptions.defaults(), () -> {
+            dao.insert(getSubscription(1, "Move"));
+            throw new IllegalStateException("boom");
+        }));
+
+        assertThat(dao.findByUserId(1)).extracting(Subscription::getName).containsExactlyInAnyOrder("Music", "Map");
+    }
+
+    @Test
+    void rejectTransactionSpanningShards() {
+        var otherShardUserId = otherShardUserId();
+
+        assertThrows(IllegalStateException.class, () -> dao.inTransaction(TransactionOptions.defaults(), () -> {
+            dao.insert(getSubscription(1, "Music"));
+            return dao.insert(getSubscription(otherShardUserId, "Music"));
+        }));
+
+        assertThat(dao.findAll()).isEmpty();
+    }
+
+    @Test
+    void readAcrossShardsInsideTransaction() {
+        var other = dao.insert(getSubscription(otherShardUserId(), "Music"));
+
+        var found = dao.inTransaction(TransactionOptions.defaults(), () -> {
+            dao.insert(getSubscription(1, "Music"));
+            assertThat(dao.findById(other.getId())).contains(other);
+            assertThat(dao.findByUserIds(List.of(1, other.getUserId()))).hasSize(2);
+            return dao.findAll();
+        });
+
+        assertThat(found).hasSize(2);
+    }
+
+    @Test
+    void upsertAllWithUsersOnDifferentShards() {
+        var existing = dao.insert(getSubscription(otherShardUserId(), "Music").setStatus(CANCELED));
+        var subscriptionService = new SubscriptionService(dao, CreateSubscriptionMapper.getInstance(),
+                CreateSubscriptionValidator.getInstance(), Clock.systemUTC());
+        List<CreateSubscriptionDto> dtos = new ArrayList<>();
+        for (int userId = 1; userId <= 10; userId++) {
+            dtos.add(getSubscriptionDto(userId, "Music"));
+        }
+        dtos.add(getSubscriptionDto(existing.getUserId(), "Music"));
+
+        var results = subscriptionService.upsertAll(dtos, 4);
+
+        assertThat(results).hasSize(dtos.size()).allMatch(UpsertResult::isSuccess);
+        for (int i = 0; i < dtos.size(); i++) {
+            assertThat(results.get(i).getDto()).isSameAs(dtos.get(i));
+            assertThat(Math.floorMod(results.get(i).getSubscription().getId(), SHARDS))
+                    .isEqualTo(dao.shardOf(dtos.get(i).getUserId()));
+        }
+        assertThat(results.get(dtos.size() - 1).getSubscription().getId()).isEqualTo(existing.getId());
+        assertThat(dao.findById(existing.getId()).get().getStatus()).isEqualTo(ACTIVE);
+        assertThat(dao.findAll()).hasSize(10);
+    }
+
+    @Test
+    void rejectIdOutOfGlobalRangeBeforeCommit() throws SQLException {
+        var shard = dao.shardOf(1);
+        try (var connection = routers.get(shard).write();
+             var statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE subscription ALTER COLUMN id RESTART WITH " + (Integer.MAX_VALUE / SHARDS + 1));
+        }
+
+        assertThrows(IllegalStateException.class, () -> dao.insert(getSubscription(1, "Music")));
+
+        assertThat(new SubscriptionDao(routers.get(shard)).findAll()).isEmpty();
+    }
+
+    private int otherShardUserId() {
+        return IntStream.iterate(2, userId -> userId + 1)
+                .filter(userId -> dao.shardOf(userId) != dao.shardOf(1))
+                .findFirst()
+                .getAsInt();
+    }
+
+    private static ConnectionRouter createRouter(String name) {
+        var pool = new ConnectionPool(PoolConfig.builder()
+                .url("jdbc:h2:mem:sharded_" + name + ";DB_CLOSE_DELAY=-1")
+                .user("sa")
+                .password("")
+                .maxSize(4)
+                .build());
+        try (var connection = pool.getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute(CREATE_SQL);
+            statement.execute("DELETE FROM subscription");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return new ConnectionRouter(pool, List.of(), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+    }
+
+    private static CreateSubscriptionDto getSubscriptionDto(Integer userId, String name) {
+        return CreateSubscriptionDto.builder()
+                .userId(userId)
+                .name(name)
+                .provider(APPLE.name())
+                .expirationDate(Instant.now().plus(Duration.ofDays(20)).truncatedTo(ChronoUnit.SECONDS))
+                .build();
+    }
+
+    private static Subscription getSubscription(Integer userId, String name) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(APPLE)
+                .expirationDate(Instant.now().plus(Duration.ofDays(10)).truncatedTo(ChronoUnit.SECONDS))
+                .status(ACTIVE)
+                .build();
+    }
+}
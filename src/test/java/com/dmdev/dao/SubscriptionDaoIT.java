@@ -1,20 +1,30 @@
 package com.dmdev.dao;
 
+import com.dmdev.dto.ExpirationBucket;
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
 import com.dmdev.entity.Subscription;
 import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.util.ConnectionManager;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.dmdev.entity.Provider.APPLE;
 import static com.dmdev.entity.Provider.GOOGLE;
 import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.entity.Status.CANCELED;
 import static com.dmdev.entity.Status.EXPIRED;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -39,6 +49,112 @@ class SubscriptionDaoIT extends IntegrationTestBase {
 
     }
 
+    @Test
+    void streamAll() {
+        var subscription1 = dao.insert(getSubscription(1, "Music"));
+        var subscription2 = dao.insert(getSubscription(2, "Map"));
+        var subscription3 = dao.insert(getSubscription(3, "Move"));
+        var activeConnections = ConnectionManager.stats().getActive();
+
+        List<Subscription> subscriptions;
+        try (Stream<Subscription> stream = dao.streamAll(2)) {
+            subscriptions = stream.toList();
+        }
+
+        assertThat(subscriptions).containsExactlyInAnyOrder(subscription1, subscription2, subscription3);
+        assertThat(ConnectionManager.stats().getActive()).isEqualTo(activeConnections);
+    }
+
+    @Test
+    void findPage() {
+        var subscription1 = dao.insert(getSubscription(1, "Music"));
+        var subscription2 = dao.insert(getSubscription(2, "Map"));
+        var subscription3 = dao.insert(getSubscription(3, "Move"));
+
+        Page<Subscription> firstPage = dao.findPage(null, 2);
+        Page<Subscription> lastPage = dao.findPage(firstPage.getNextCursor(), 2);
+
+        assertThat(firstPage.getContent()).containsExactly(subscription1, subscription2);
+        assertThat(firstPage.getNextCursor()).isEqualTo(subscription2.getId());
+        assertThat(lastPage.getContent()).containsExactly(subscription3);
+        assertFalse(lastPage.hasNext());
+    }
+
+    @Test
+    void findPageWithFilter() {
+        var subscription1 = dao.insert(getSubscription(1, "Music"));
+        dao.insert(getSubscription(2, "Map").setStatus(EXPIRED));
+        var subscription3 = dao.insert(getSubscription(3, "Move").setProvider(GOOGLE));
+        var filter = SubscriptionFilter.builder()
+                .status(ACTIVE)
+                .build();
+
+        Page<Subscription> page = dao.findPage(subscription1.getId(), 10, filter);
+
+        assertThat(page.getContent()).containsExactly(subscription3);
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void streamAllWithExpirationRange() {
+        var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        dao.insert(getSubscription(1, "Music").setExpirationDate(now.plus(Duration.ofDays(1))));
+        var subscription2 = dao.insert(getSubscription(2, "Map").setExpirationDate(now.plus(Duration.ofDays(5))));
+        dao.insert(getSubscription(3, "Move").setExpirationDate(now.plus(Duration.ofDays(10))));
+        dao.insert(getSubscription(4, "Music").setExpirationDate(now.plus(Duration.ofDays(5))).setStatus(CANCELED));
+        var filter = SubscriptionFilter.builder()
+                .status(ACTIVE)
+                .expiresFrom(now.plus(Duration.ofDays(5)))
+                .expiresBefore(now.plus(Duration.ofDays(10)))
+                .build();
+
+        List<Subscription> subscriptions;
+        try (Stream<Subscription> stream = dao.streamAll(filter, 2)) {
+            subscriptions = stream.toList();
+        }
+
+        assertThat(subscriptions).containsExactly(subscription2);
+    }
+
+    @Test
+    void countByStatusAndProvider() {
+        dao.insert(getSubscription(1, "Music"));
+        dao.insert(getSubscription(2, "Music"));
+        dao.insert(getSubscription(3, "Music").setProvider(GOOGLE));
+        dao.insert(getSubscription(4, "Music").setStatus(CANCELED));
+
+        List<SubscriptionCount> counts = dao.countByStatusAndProvider(SubscriptionFilter.empty());
+
+        assertThat(counts).containsExactlyInAnyOrder(
+                new SubscriptionCount(ACTIVE, APPLE, 2),
+                new SubscriptionCount(ACTIVE, GOOGLE, 1),
+                new SubscriptionCount(CANCELED, APPLE, 1));
+    }
+
+    @Test
+    void countByExpiration() {
+        var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        var day = Duration.ofDays(1);
+        dao.insert(getSubscription(1, "Music").setExpirationDate(now.plus(Duration.ofHours(1))));
+        dao.insert(getSubscription(2, "Music").setExpirationDate(now.plus(Duration.ofHours(2))));
+        dao.insert(getSubscription(3, "Music").setExpirationDate(now.plus(Duration.ofHours(50))));
+        dao.insert(getSubscription(4, "Music").setExpirationDate(now.plus(Duration.ofDays(8))));
+        dao.insert(getSubscription(5, "Music").setExpirationDate(now.plus(Duration.ofHours(1))).setStatus(CANCELED));
+        dao.insert(getSubscription(6, "Music").setExpirationDate(now.plus(day)));
+        var filter = SubscriptionFilter.builder()
+                .status(ACTIVE)
+                .build();
+
+        List<ExpirationBucket> buckets = dao.countByExpiration(filter, now, day, 7);
+
+        assertThat(buckets).extracting(ExpirationBucket::getCount)
+                .containsExactly(2L, 1L, 1L, 0L, 0L, 0L, 0L);
+        assertThat(buckets.get(6).getTo()).isEqualTo(now.plus(Duration.ofDays(7)));
+        assertThat(dao.countByExpiration(filter, now, Duration.ofDays(30), 1))
+                .extracting(ExpirationBucket::getCount)
+                .containsExactly(5L);
+    }
+
     @Test
     void findByIdIfEntityExist() {
         var subscription = dao.insert(getSubscription(1, "Music"));
@@ -136,6 +252,132 @@ class SubscriptionDaoIT extends IntegrationTestBase {
         assertThat(updatedSubscription).isEqualTo(subscription);
     }
 
+    @Test
+    void findByUserIds() {
+        var subscription1 = dao.insert(getSubscription(1, "Music"));
+        var subscription2 = dao.insert(getSubscription(1, "Map"));
+        var subscription3 = dao.insert(getSubscription(2, "Move"));
+        dao.insert(getSubscription(3, "Book"));
+
+        Map<Integer, List<Subscription>> subscriptions = dao.findByUserIds(List.of(1, 2, 4));
+
+        assertThat(subscriptions).containsOnlyKeys(1, 2);
+        assertThat(subscriptions.get(1)).containsExactlyInAnyOrder(subscription1, subscription2);
+        assertThat(subscriptions.get(2)).containsExactly(subscription3);
+    }
+
+    @Test
+    void findByUserIdsAcrossChunks() {
+        List<Subscription> expected = IntStream.rangeClosed(1, 600)
+                .mapToObj(userId -> getSubscription(userId, "Music"))
+                .toList();
+        dao.insertAll(expected);
+        List<Integer> userIds = IntStream.rangeClosed(1, 700)
+                .mapToObj(userId -> userId % 2 == 0 ? userId : userId - 1)
+                .toList();
+
+        Map<Integer, List<Subscription>> subscriptions = dao.findByUserIds(userIds);
+
+        assertThat(subscriptions).hasSize(300);
+        assertThat(subscriptions.get(600)).containsExactly(expected.get(599));
+    }
+
+    @Test
+    void findByIds() {
+        var subscription1 = dao.insert(getSubscription(1, "Music"));
+        var subscription2 = dao.insert(getSubscription(2, "Map"));
+        dao.insert(getSubscription(3, "Move"));
+
+        Map<Integer, Subscription> subscriptions = dao.findByIds(List.of(subscription1.getId(), subscription2.getId(), -1));
+
+        assertThat(subscriptions).containsOnly(
+                Map.entry(subscription1.getId(), subscription1),
+                Map.entry(subscription2.getId(), subscription2));
+    }
+
+    @Test
+    void insertAll() {
+        List<Subscription> subscriptions = List.of(getSubscription(1, "Music"), getSubscription(2, "Map"));
+
+        dao.insertAll(subscriptions);
+
+        assertThat(subscriptions).allSatisfy(subscription -> assertNotNull(subscription.getId()));
+        assertThat(dao.findAll()).containsExactlyInAnyOrderElementsOf(subscriptions);
+    }
+
+    @Test
+    void updateAll() {
+        var subscription1 = dao.insert(getSubscription(1, "Music"));
+        var subscription2 = dao.insert(getSubscription(2, "Map"));
+        subscription1.setStatus(EXPIRED);
+        subscription2.setProvider(GOOGLE);
+
+        dao.updateAll(List.of(subscription1, subscription2));
+
+        assertThat(dao.findAll()).containsExactlyInAnyOrder(subscription1, subscription2);
+    }
+
+    @Test
+    void upsertByKeyIfEntityNotExist() {
+        Subscription subscription = getSubscription(1, "Music");
+
+        Subscription actualResult = dao.upsertByKey(subscription);
+
+        assertNotNull(actualResult.getId());
+        assertThat(dao.findById(actualResult.getId())).contains(subscription);
+    }
+
+    @Test
+    void upsertByKeyIfEntityExist() {
+        var existingSubscription = dao.insert(getSubscription(1, "Music"));
+        Subscription subscription = getSubscription(1, "Music")
+                .setProvider(GOOGLE)
+                .setStatus(EXPIRED);
+
+        Subscription actualResult = dao.upsertByKey(subscription);
+
+        assertThat(actualResult.getId()).isEqualTo(existingSubscription.getId());
+        assertThat(dao.findAll()).containsExactly(subscription);
+    }
+
+    @Test
+    void cancelIfActive() {
+        var subscription = dao.insert(getSubscription(1, "Music"));
+
+        assertTrue(dao.cancelIfActive(subscription.getId()));
+        assertFalse(dao.cancelIfActive(subscription.getId()));
+        assertThat(dao.findById(subscription.getId()).get().getStatus()).isEqualTo(CANCELED);
+    }
+
+    @Test
+    void expireIfNotExpired() {
+        var subscription = dao.insert(getSubscription(1, "Music"));
+        var expirationDate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        assertTrue(dao.expireIfNotExpired(subscription.getId(), expirationDate));
+        assertFalse(dao.expireIfNotExpired(subscription.getId(), expirationDate.plusSeconds(1)));
+        assertThat(dao.findById(subscription.getId())).get()
+                .extracting(Subscription::getStatus, Subscription::getExpirationDate)
+                .containsExactly(EXPIRED, expirationDate);
+    }
+
+    @Test
+    void expireIfDue() {
+        var due = dao.insert(getSubscription(1, "Music"));
+        var canceled = dao.insert(getSubscription(1, "Map").setStatus(CANCELED));
+        var notDue = dao.insert(getSubscription(2, "Music"));
+        var instant = due.getExpirationDate();
+
+        assertFalse(dao.expireIfDue(notDue.getId(), instant.minusSeconds(1)));
+        assertTrue(dao.expireIfDue(due.getId(), instant));
+        assertFalse(dao.expireIfDue(due.getId(), instant));
+        assertFalse(dao.expireIfDue(canceled.getId(), instant));
+        assertThat(dao.findAll())
+                .extracting(Subscription::getId, Subscription::getStatus)
+                .containsExactlyInAnyOrder(tuple(due.getId(), EXPIRED), tuple(canceled.getId(), CANCELED),
+                        tuple(notDue.getId(), ACTIVE));
+    }
+
     private static Subscription getSubscription(Integer userId, String name) {
         return Subscription.builder()
                 .userId(userId)
@@ -0,0 +1,157 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.service.SubscriptionListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionWriteCoalescerTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionDao;
+    private SubscriptionWriteCoalescer coalescer;
+
+    @BeforeEach
+    void init() {
+        lenient().doAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get())
+                .when(subscriptionDao).inTransaction(any(), any());
+    }
+
+    @AfterEach
+    void close() {
+        coalescer.close();
+    }
+
+    @Test
+    void flushFullBatchInOneCall() throws Exception {
+        coalescer = new SubscriptionWriteCoalescer(subscriptionDao, 3, Duration.ofMinutes(1));
+        var sequence = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<Subscription> subscriptions = invocation.getArgument(0);
+            subscriptions.forEach(subscription -> subscription.setId(sequence.incrementAndGet()));
+            return subscriptions;
+        }).when(subscriptionDao).insertAll(anyList());
+        var first = getSubscription("Music");
+        var second = getSubscription("Map");
+        var third = getSubscription("Move");
+
+        var futures = List.of(coalescer.insert(first), coalescer.insert(second), coalescer.insert(third));
+
+        for (var future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        verify(subscriptionDao).insertAll(List.of(first, second, third));
+        verify(subscriptionDao).updateAll(List.of());
+    }
+
+    @Test
+    void flushPartialBatchAfterLinger() throws Exception {
+        coalescer = new SubscriptionWriteCoalescer(subscriptionDao, 100, Duration.ofMillis(10));
+        var subscription = getSubscription("Music").setId(1);
+
+        var actualResult = coalescer.upsert(subscription).get(5, TimeUnit.SECONDS);
+
+        assertThat(actualResult).isSameAs(subscription);
+        verify(subscriptionDao).updateAll(List.of(subscription));
+    }
+
+    @Test
+    void fallBackToIndividualWritesWhenBatchFails() throws Exception {
+        coalescer = new SubscriptionWriteCoalescer(subscriptionDao, 2, Duration.ofMinutes(1));
+        var valid = getSubscription("Music").setId(1);
+        var invalid = getSubscription("Map").setId(2);
+        doThrow(new IllegalStateException("batch")).when(subscriptionDao).updateAll(anyList());
+        doReturn(valid).when(subscriptionDao).update(valid);
+        doThrow(new IllegalStateException("duplicate")).when(subscriptionDao).update(invalid);
+
+        var validFuture = coalescer.update(valid);
+        var invalidFuture = coalescer.update(invalid);
+
+        assertThat(validFuture.get(5, TimeUnit.SECONDS)).isSameAs(valid);
+        var exception = assertThrows(ExecutionException.class, () -> invalidFuture.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).hasMessage("duplicate");
+    }
+
+    @Test
+    void failBatchWhenFlushThrowsError() throws Exception {
+        coalescer = new SubscriptionWriteCoalescer(subscriptionDao, 1, Duration.ZERO);
+        var failed = getSubscription("Music");
+        var written = getSubscription("Map");
+        doThrow(new AssertionError("batch")).when(subscriptionDao).insertAll(List.of(failed));
+        doReturn(List.of(written)).when(subscriptionDao).insertAll(List.of(written));
+
+        var failedFuture = coalescer.insert(failed);
+        var exception = assertThrows(ExecutionException.class, () -> failedFuture.get(5, TimeUnit.SECONDS));
+        var writtenFuture = coalescer.insert(written);
+
+        assertThat(exception.getCause()).isInstanceOf(AssertionError.class);
+        assertThat(writtenFuture.get(5, TimeUnit.SECONDS)).isSameAs(written);
+    }
+
+    @Test
+    void publishCommittedWrites() throws Exception {
+        List<Subscription> upserted = new CopyOnWriteArrayList<>();
+        coalescer = new SubscriptionWriteCoalescer(subscriptionDao, 2, Duration.ofMinutes(1), new SubscriptionListener() {
+            @Override
+            public void onUpserted(Subscription subscription) {
+                upserted.add(subscription);
+            }
+        });
+        var first = getSubscription("Music").setId(1);
+        var second = getSubscription("Map").setId(2);
+
+        coalescer.update(first);
+        coalescer.update(second).get(5, TimeUnit.SECONDS);
+
+        assertThat(upserted).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void rejectWritesAfterClose() {
+        coalescer = new SubscriptionWriteCoalescer(subscriptionDao, 10, Duration.ZERO);
+        coalescer.close();
+
+        var future = coalescer.insert(getSubscription("Music"));
+
+        assertThat(future).isCompletedExceptionally();
+        verify(subscriptionDao, never()).insertAll(anyList());
+    }
+
+    private static Subscription getSubscription(String name) {
+        return Subscription.builder()
+                .userId(1)
+                .name(name)
+                .provider(APPLE)
+                .expirationDate(Instant.now().plus(Duration.ofDays(10)).truncatedTo(ChronoUnit.SECONDS))
+                .status(ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.dmdev.exporter;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Subscription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Instant;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Provider.GOOGLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.entity.Status.CANCELED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionExporterTest {
+
+    private static final Instant EXPIRATION_DATE = Instant.parse("2030-01-01T00:00:00Z");
+    private static final SubscriptionFilter FILTER = SubscriptionFilter.builder()
+            .status(ACTIVE)
+            .build();
+
+    @Mock
+    private SubscriptionDao subscriptionDao;
+
+    @Test
+    void exportCsvThroughSmallBuffer() {
+        doReturn(getSubscriptions()).when(subscriptionDao).streamAll(FILTER, 2);
+        var exporter = new SubscriptionExporter(subscriptionDao, ExportOptions.builder()
+                .fetchSize(2)
+                .bufferSize(16)
+                .build());
+        var output = new ByteArrayOutputStream();
+
+        var rows = exporter.export(Channels.newChannel(output), ExportFormat.CSV, FILTER);
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(output.toString(UTF_8)).isEqualTo("""
+                id,user_id,name,provider,expiration_date,status
+                1,10,"Music, ""Pro\""",APPLE,2030-01-01T00:00:00Z,ACTIVE
+                2,20,"Карты",GOOGLE,2030-01-01T00:00:00Z,CANCELED
+                """);
+    }
+
+    @Test
+    void exportGzippedNdjson() throws IOException {
+        doReturn(getSubscriptions()).when(subscriptionDao).streamAll(FILTER, 1000);
+        var exporter = new SubscriptionExporter(subscriptionDao, ExportOptions.builder()
+                .gzip(true)
+                .build());
+        var output = new ByteArrayOutputStream();
+
+        exporter.export(Channels.newChannel(output), ExportFormat.NDJSON, FILTER);
+
+        try (var input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            assertThat(new String(input.readAllBytes(), UTF_8)).isEqualTo("""
+                    {"id":1,"userId":10,"name":"Music, \\"Pro\\"","provider":"APPLE","expirationDate":"2030-01-01T00:00:00Z","status":"ACTIVE"}
+                    {"id":2,"userId":20,"name":"Карты","provider":"GOOGLE","expirationDate":"2030-01-01T00:00:00Z","status":"CANCELED"}
+                    """);
+        }
+    }
+
+    @Test
+    void replaceLoneSurrogateInsteadOfTruncatingRow() {
+        doReturn(Stream.of(getSubscription(1, 10, "Music\uD800").setStatus(ACTIVE)))
+                .when(subscriptionDao).streamAll(FILTER, 1000);
+        var exporter = new SubscriptionExporter(subscriptionDao, ExportOptions.builder().build());
+        var output = new ByteArrayOutputStream();
+
+        exporter.export(Channels.newChannel(output), ExportFormat.CSV, FILTER);
+
+        assertThat(output.toString(UTF_8)).endsWith("""
+                1,10,"Music?",APPLE,2030-01-01T00:00:00Z,ACTIVE
+                """);
+    }
+
+    private static Stream<Subscription> getSubscriptions() {
+        return Stream.of(
+                getSubscription(1, 10, "Music, \"Pro\"").setStatus(ACTIVE),
+                getSubscription(2, 20, "Карты").setProvider(GOOGLE).setStatus(CANCELED));
+    }
+
+    private static Subscription getSubscription(Integer id, Integer userId, String name) {
+        return Subscription.builder()
+                .id(id)
+                .userId(userId)
+                .name(name)
+                .provider(APPLE)
+                .expirationDate(EXPIRATION_DATE)
+                .build();
+    }
+}
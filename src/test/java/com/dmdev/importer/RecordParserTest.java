@@ -0,0 +1,78 @@
+package com.dmdev.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecordParserTest {
+
+    private static final Instant EXPIRATION_DATE = Instant.parse("2030-01-01T00:00:00Z");
+
+    @Test
+    void parseQuotedCsv() {
+        var parser = RecordParser.of(ImportFormat.CSV);
+
+        var dto = parser.parse("1,\"Music, \"\"Pro\"\"\",APPLE,2030-01-01T00:00:00Z");
+
+        assertThat(parser.isHeader("user_id, name, provider, expiration_date")).isTrue();
+        assertThat(dto.getUserId()).isEqualTo(1);
+        assertThat(dto.getName()).isEqualTo("Music, \"Pro\"");
+        assertThat(dto.getProvider()).isEqualTo("APPLE");
+        assertThat(dto.getExpirationDate()).isEqualTo(EXPIRATION_DATE);
+    }
+
+    @Test
+    void rejectCsvWithWrongColumnCount() {
+        var parser = RecordParser.of(ImportFormat.CSV);
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("1,Music,APPLE"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("1,\"Music,APPLE,2030-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void parseNdjson() {
+        var parser = RecordParser.of(ImportFormat.NDJSON);
+
+        var dto = parser.parse("{\"userId\": 7, \"name\": \"M\\u00fcsic\\t1\", \"provider\": \"GOOGLE\", "
+                               + "\"expirationDate\": \"2030-01-01T00:00:00Z\", \"extra\": true}");
+
+        assertThat(dto.getUserId()).isEqualTo(7);
+        assertThat(dto.getName()).isEqualTo("Müsic\t1");
+        assertThat(dto.getProvider()).isEqualTo("GOOGLE");
+        assertThat(dto.getExpirationDate()).isEqualTo(EXPIRATION_DATE);
+    }
+
+    @Test
+    void rejectMalformedNdjson() {
+        var parser = RecordParser.of(ImportFormat.NDJSON);
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"userId\": 7, \"name\": \"Music\""));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"userId\": {\"id\": 7}}"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("[1, 2]"));
+    }
+
+    @Test
+    void readLinesAcrossBufferBoundaries() throws IOException {
+        var content = "first line\r\nвторая строка\n\nlast";
+        var channel = Channels.newChannel(new ByteArrayInputStream(content.getBytes(UTF_8)));
+        List<String> lines = new ArrayList<>();
+
+        try (var reader = new ChannelLineReader(channel, 3)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        assertThat(lines).containsExactly("first line", "вторая строка", "", "last");
+    }
+}
@@ -0,0 +1,153 @@
+package com.dmdev.importer;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionListener;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Provider.GOOGLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubscriptionImporterIT extends IntegrationTestBase {
+
+    private static final Instant EXPIRATION_DATE = Instant.now().plus(Duration.ofDays(30)).truncatedTo(ChronoUnit.SECONDS);
+
+    @TempDir
+    Path directory;
+
+    private SubscriptionDao subscriptionDao;
+
+    @BeforeEach
+    void init() {
+        subscriptionDao = SubscriptionDao.getInstance();
+    }
+
+    @Test
+    void importCsv() throws IOException {
+        var file = directory.resolve("subscriptions.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("user_id,name,provider,expiration_date");
+        for (int userId = 1; userId <= 25; userId++) {
+            lines.add(userId + ",Music," + APPLE + "," + EXPIRATION_DATE);
+        }
+        lines.add("");
+        lines.add("26,\"Map, Pro\",GOOGLE," + EXPIRATION_DATE);
+        lines.add("27,Music,UNKNOWN," + EXPIRATION_DATE);
+        lines.add("28,Music,APPLE");
+        lines.add("3,Music,APPLE," + EXPIRATION_DATE);
+        Files.write(file, lines);
+        var importer = createImporter(ImportOptions.builder()
+                .batchSize(4)
+                .queueCapacity(2)
+                .parallelism(3)
+                .build());
+
+        var report = importer.importFile(file);
+
+        assertThat(report.getRead()).isEqualTo(29);
+        assertThat(report.getImported()).isEqualTo(26);
+        assertThat(report.getRejected()).isEqualTo(3);
+        assertThat(subscriptionDao.findAll()).hasSize(26);
+        assertThat(subscriptionDao.findByUserId(26))
+                .extracting(Subscription::getName, Subscription::getProvider, Subscription::getStatus)
+                .containsExactly(tuple("Map, Pro", GOOGLE, ACTIVE));
+        assertThat(Files.readAllLines(report.getRejectFile()))
+                .hasSize(3)
+                .anyMatch(line -> line.startsWith("29\tprovider is invalid\t"))
+                .anyMatch(line -> line.startsWith("30\tunparseable: "))
+                .anyMatch(line -> line.startsWith("31\tnot inserted: "));
+    }
+
+    @Test
+    void importNdjsonWithProgress() throws IOException {
+        var file = directory.resolve("subscriptions.ndjson");
+        var rejectFile = directory.resolve("rejects.tsv");
+        Files.write(file, List.of(
+                "{\"userId\": 1, \"name\": \"Music\", \"provider\": \"APPLE\", \"expirationDate\": \"" + EXPIRATION_DATE + "\"}",
+                "{\"userId\": 2, \"name\": \"Music\", \"provider\": \"GOOGLE\", \"expirationDate\": \"" + EXPIRATION_DATE + "\"}",
+                "{\"userId\": null, \"name\": \"Music\", \"provider\": \"APPLE\", \"expirationDate\": \"" + EXPIRATION_DATE + "\"}",
+                "not json"));
+        List<ImportReport> reports = new ArrayList<>();
+        var importer = createImporter(ImportOptions.builder()
+                .parallelism(2)
+                .rejectFile(rejectFile)
+                .build());
+
+        var report = importer.importFile(file, ImportFormat.NDJSON, reports::add);
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getRejectFile()).isEqualTo(rejectFile);
+        assertThat(reports).last().isEqualTo(report);
+        assertThat(Files.readAllLines(rejectFile)).hasSize(2);
+        assertThat(subscriptionDao.findByUserId(2)).hasSize(1);
+    }
+
+    @Test
+    void publishImportedRows() throws IOException {
+        var file = directory.resolve("subscriptions.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("user_id,name,provider,expiration_date");
+        for (int userId = 1; userId <= 10; userId++) {
+            lines.add(userId + ",Music," + APPLE + "," + EXPIRATION_DATE);
+        }
+        lines.add("3,Music,APPLE," + EXPIRATION_DATE);
+        Files.write(file, lines);
+        Queue<Subscription> upserted = new ConcurrentLinkedQueue<>();
+        var importer = new SubscriptionImporter(
+                subscriptionDao,
+                CreateSubscriptionValidator.getInstance(),
+                CreateSubscriptionMapper.getInstance(),
+                ImportOptions.builder().batchSize(4).parallelism(2).build(),
+                new SubscriptionListener() {
+                    @Override
+                    public void onUpserted(Subscription subscription) {
+                        upserted.add(subscription);
+                    }
+                });
+
+        var report = importer.importFile(file);
+
+        assertThat(report.getImported()).isEqualTo(10);
+        assertThat(upserted).hasSize(10)
+                .allMatch(subscription -> subscription.getId() != null)
+                .containsExactlyInAnyOrderElementsOf(subscriptionDao.findAll());
+    }
+
+    @Test
+    void rejectNonPositiveProgressInterval() {
+        var options = ImportOptions.builder()
+                .progressInterval(Duration.ZERO)
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> createImporter(options));
+    }
+
+    private SubscriptionImporter createImporter(ImportOptions options) {
+        return new SubscriptionImporter(
+                subscriptionDao,
+                CreateSubscriptionValidator.getInstance(),
+                CreateSubscriptionMapper.getInstance(),
+                options);
+    }
+}
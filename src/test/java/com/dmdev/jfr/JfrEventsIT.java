@@ -0,0 +1,104 @@
+package com.dmdev.jfr;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JfrEventsIT extends IntegrationTestBase {
+
+    private static final String DAO_STATEMENT = "com.dmdev.DaoStatement";
+    private static final String CONNECTION_ACQUIRE = "com.dmdev.ConnectionAcquire";
+    private static final String SERVICE_OPERATION = "com.dmdev.ServiceOperation";
+
+    @TempDir
+    Path directory;
+
+    private SubscriptionService subscriptionService;
+
+    @BeforeEach
+    void init() {
+        subscriptionService = new SubscriptionService(
+                SubscriptionDao.getInstance(), CreateSubscriptionMapper.getInstance(),
+                CreateSubscriptionValidator.getInstance(), Clock.systemUTC()
+        );
+    }
+
+    @Test
+    void emitEventsForServiceCall() throws IOException {
+        var events = record(() -> subscriptionService.upsert(getSubscriptionDto()));
+
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo(SERVICE_OPERATION);
+            assertThat(event.getString("operation")).isEqualTo("upsert");
+            assertThat(event.getInt("userId")).isEqualTo(1);
+            assertThat(event.getString("outcome")).isEqualTo(Outcome.SUCCESS);
+        });
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo(DAO_STATEMENT);
+            assertThat(event.getString("sqlId")).isEqualTo("findByUserId");
+            assertThat(event.getInt("rowCount")).isZero();
+            assertThat(event.getInt("userId")).isEqualTo(1);
+        });
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo(DAO_STATEMENT);
+            assertThat(event.getString("sqlId")).isEqualTo("insert");
+        });
+        assertThat(events).anySatisfy(event -> assertThat(event.getEventType().getName()).isEqualTo(CONNECTION_ACQUIRE));
+    }
+
+    @Test
+    void recordFailureOutcome() throws IOException {
+        var events = record(() -> assertThrows(IllegalArgumentException.class, () -> subscriptionService.cancel(-1)));
+
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo(SERVICE_OPERATION);
+            assertThat(event.getString("operation")).isEqualTo("cancel");
+            assertThat(event.getInt("subscriptionId")).isEqualTo(-1);
+            assertThat(event.getString("outcome")).isEqualTo("IllegalArgumentException");
+        });
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws IOException {
+        var file = directory.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            for (String event : List.of(DAO_STATEMENT, CONNECTION_ACQUIRE, SERVICE_OPERATION)) {
+                recording.enable(event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private CreateSubscriptionDto getSubscriptionDto() {
+        return CreateSubscriptionDto.builder()
+                .userId(1)
+                .name("Ivan")
+                .provider(APPLE.name())
+                .expirationDate(Instant.now().plus(Duration.ofDays(1)).truncatedTo(ChronoUnit.SECONDS))
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.dmdev.journal;
+
+import com.dmdev.entity.Subscription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.dmdev.entity.Provider.GOOGLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.journal.JournalEntryType.CANCEL;
+import static com.dmdev.journal.JournalEntryType.EXPIRE;
+import static com.dmdev.journal.JournalEntryType.UPSERT;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubscriptionJournalTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T00:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendAndReplayFromOffset() {
+        var subscription = getSubscription(1, "Музыка");
+        try (var journal = createJournal(4096)) {
+            journal.onUpserted(subscription);
+            journal.onCanceled(1);
+            journal.onExpired(1);
+        }
+
+        List<JournalEntry> entries = new ArrayList<>();
+        var nextSequence = new JournalReader(directory).replay(1, entries::add);
+
+        assertThat(nextSequence).isEqualTo(4);
+        assertThat(entries).extracting(JournalEntry::getSequence, JournalEntry::getType)
+                .containsExactly(
+                        tuple(1L, UPSERT),
+                        tuple(2L, CANCEL),
+                        tuple(3L, EXPIRE));
+        assertThat(entries.get(0).getSubscription()).isEqualTo(subscription);
+        assertThat(entries.get(0).getTimestamp()).isEqualTo(NOW);
+        assertThat(new JournalReader(directory).replay(3, entry -> {
+        })).isEqualTo(4);
+    }
+
+    @Test
+    void rollOverSegments() throws IOException {
+        try (var journal = createJournal(128)) {
+            for (int id = 1; id <= 10; id++) {
+                journal.onUpserted(getSubscription(id, "Music"));
+            }
+        }
+
+        List<Integer> subscriptionIds = new ArrayList<>();
+        var nextSequence = new JournalReader(directory).replay(7, entry -> subscriptionIds.add(entry.getSubscriptionId()));
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+        assertThat(subscriptionIds).containsExactly(7, 8, 9, 10);
+        assertThat(nextSequence).isEqualTo(11);
+    }
+
+    @Test
+    void continueAfterReopen() {
+        try (var journal = createJournal(4096)) {
+            journal.onCanceled(1);
+            journal.onCanceled(2);
+        }
+
+        try (var journal = createJournal(4096)) {
+            assertThat(journal.getNextSequence()).isEqualTo(3);
+            assertThat(journal.append(EXPIRE, 3, null)).isEqualTo(3);
+        }
+
+        List<Integer> subscriptionIds = new ArrayList<>();
+        new JournalReader(directory).replay(1, entry -> subscriptionIds.add(entry.getSubscriptionId()));
+        assertThat(subscriptionIds).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void discardTornEntryOnReopen() throws IOException {
+        try (var journal = createJournal(4096)) {
+            journal.onCanceled(1);
+            journal.onCanceled(2);
+        }
+        var segment = JournalCodec.segmentPath(directory, 1);
+        var entrySize = JournalCodec.size(null, null);
+        try (var channel = FileChannel.open(segment, WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), entrySize + JournalCodec.HEADER_SIZE);
+        }
+
+        try (var journal = createJournal(4096)) {
+            assertThat(journal.getNextSequence()).isEqualTo(2);
+            journal.onExpired(3);
+        }
+
+        List<JournalEntry> entries = new ArrayList<>();
+        new JournalReader(directory).replay(1, entries::add);
+        assertThat(entries).extracting(JournalEntry::getSubscriptionId, JournalEntry::getType)
+                .containsExactly(
+                        tuple(1, CANCEL),
+                        tuple(3, EXPIRE));
+    }
+
+    @Test
+    void replayNameLongerThanSignedShort() {
+        var subscription = getSubscription(1, "M".repeat(40_000));
+        try (var journal = createJournal(65536)) {
+            journal.onUpserted(subscription);
+        }
+
+        List<JournalEntry> entries = new ArrayList<>();
+        new JournalReader(directory).replay(1, entries::add);
+
+        assertThat(entries).extracting(JournalEntry::getSubscription).containsExactly(subscription);
+    }
+
+    @Test
+    void rejectNameLongerThanUnsignedShort() {
+        try (var journal = createJournal(131072)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.onUpserted(getSubscription(1, "M".repeat(70_000))));
+            assertThat(journal.getNextSequence()).isEqualTo(1);
+        }
+    }
+
+    private SubscriptionJournal createJournal(int segmentSize) {
+        return new SubscriptionJournal(directory, segmentSize, 2, Duration.ofMillis(10), CLOCK);
+    }
+
+    private static Subscription getSubscription(Integer id, String name) {
+        return Subscription.builder()
+                .id(id)
+                .userId(100 + id)
+                .name(name)
+                .provider(GOOGLE)
+                .expirationDate(NOW.plus(Duration.ofDays(30)))
+                .status(ACTIVE)
+                .build();
+    }
+}
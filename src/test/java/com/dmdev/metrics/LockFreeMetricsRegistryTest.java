@@ -0,0 +1,77 @@
+package com.dmdev.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LockFreeMetricsRegistryTest {
+
+    private final LockFreeMetricsRegistry registry = new LockFreeMetricsRegistry();
+
+    @Test
+    void percentilesWithinBucketPrecision() {
+        LongStream.rangeClosed(1, 1000).forEach(value -> registry.recordLatency("dao.findById", value * 1000));
+
+        var histogram = registry.snapshot().getLatencies().get("dao.findById");
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1_000_000);
+        assertThat((double) histogram.getP50()).isCloseTo(500_000, within(500_000 / 16.0));
+        assertThat((double) histogram.getP99()).isCloseTo(990_000, within(990_000 / 16.0));
+        assertThat(histogram.getP999()).isLessThanOrEqualTo(histogram.getMax());
+        assertThat(histogram.getMean()).isEqualTo(500_500);
+    }
+
+    @Test
+    void countErrorsSeparately() {
+        registry.recordLatency("service.cancel", 10);
+        registry.recordError("service.cancel");
+        registry.recordError("service.cancel");
+
+        var snapshot = registry.snapshot();
+
+        assertThat(snapshot.getErrors()).containsEntry("service.cancel", 2L);
+        assertThat(snapshot.getLatencies().get("service.cancel").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void recordConcurrently() throws InterruptedException {
+        var threads = 8;
+        var iterations = 10_000;
+        var executor = Executors.newFixedThreadPool(threads);
+        var latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    registry.recordLatency("connection.acquire", j);
+                }
+                latch.countDown();
+            });
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(registry.snapshot().getLatencies().get("connection.acquire").getCount())
+                .isEqualTo((long) threads * iterations);
+    }
+
+    @Test
+    void exportSnapshot() {
+        registry.recordLatency("dao.findAll", 100);
+        registry.recordValue("dao.findAll.rows", 3);
+        registry.recordError("dao.insert");
+
+        var snapshot = registry.snapshot();
+
+        assertThat(snapshot.toText()).contains("dao.findAll.latency_ns.count 1", "dao.findAll.rows.max 3", "dao.insert.errors 1");
+        assertThat(snapshot.toJson()).isEqualTo("{\"latencies\":{\"dao.findAll\":{\"count\":1,\"sum\":100,\"max\":100,\"p50\":100,\"p99\":100,\"p999\":100}},"
+                + "\"values\":{\"dao.findAll.rows\":{\"count\":1,\"sum\":3,\"max\":3,\"p50\":3,\"p99\":3,\"p999\":3}},"
+                + "\"errors\":{\"dao.insert\":1}}");
+    }
+}
@@ -0,0 +1,89 @@
+package com.dmdev.service;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.SubscriptionException;
+import com.dmdev.exception.ValidationException;
+import com.dmdev.validator.Error;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncSubscriptionServiceTest {
+
+    @Mock
+    private SubscriptionService subscriptionService;
+    private AsyncSubscriptionService asyncSubscriptionService;
+
+    @BeforeEach
+    void init() {
+        asyncSubscriptionService = new AsyncSubscriptionService(subscriptionService, 2);
+    }
+
+    @AfterEach
+    void close() {
+        asyncSubscriptionService.close();
+    }
+
+    @Test
+    void upsert() throws Exception {
+        var dto = CreateSubscriptionDto.builder().userId(11).build();
+        var subscription = Subscription.builder().id(1).build();
+        doReturn(subscription).when(subscriptionService).upsert(dto);
+
+        Subscription actualResult = asyncSubscriptionService.upsert(dto).get();
+
+        assertThat(actualResult).isEqualTo(subscription);
+    }
+
+    @Test
+    void upsertFailsWithValidationException() {
+        var dto = CreateSubscriptionDto.builder().build();
+        var validationException = new ValidationException(List.of(Error.of(100, "userId is invalid")));
+        doThrow(validationException).when(subscriptionService).upsert(dto);
+
+        var exception = assertThrows(ExecutionException.class, () -> asyncSubscriptionService.upsert(dto).get());
+
+        assertThat(exception.getCause()).isSameAs(validationException);
+    }
+
+    @Test
+    void cancel() throws Exception {
+        asyncSubscriptionService.cancel(1).get();
+
+        verify(subscriptionService).cancel(1);
+    }
+
+    @Test
+    void expireFailsWithSubscriptionException() {
+        doThrow(new SubscriptionException("Subscription 1 has already expired")).when(subscriptionService).expire(1);
+
+        var exception = assertThrows(ExecutionException.class, () -> asyncSubscriptionService.expire(1).get());
+
+        assertThat(exception.getCause()).isInstanceOf(SubscriptionException.class);
+    }
+
+    @Test
+    void submitAfterCloseReturnsFailedFuture() {
+        asyncSubscriptionService.close();
+
+        var future = asyncSubscriptionService.cancel(1);
+
+        var exception = assertThrows(ExecutionException.class, future::get);
+        assertThat(exception.getCause()).isInstanceOf(RejectedExecutionException.class);
+    }
+}
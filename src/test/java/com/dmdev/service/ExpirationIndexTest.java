@@ -0,0 +1,158 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.InMemorySubscriptionDao;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.Page;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.entity.Status.CANCELED;
+import static com.dmdev.entity.Status.EXPIRED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ExpirationIndexTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T00:00:00Z");
+
+    @Mock
+    private SubscriptionService subscriptionService;
+    @Mock
+    private Clock clock;
+    private ExpirationIndex expirationIndex;
+
+    @BeforeEach
+    void init() {
+        expirationIndex = new ExpirationIndex(subscriptionService, clock, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void close() {
+        expirationIndex.close();
+    }
+
+    @Test
+    void expireOnlyDueSubscriptions() {
+        expirationIndex.schedule(1, NOW.plusMillis(1500));
+        expirationIndex.schedule(2, NOW.plusSeconds(60));
+
+        doReturn(NOW.toEpochMilli()).when(clock).millis();
+        assertThat(expirationIndex.advance()).isZero();
+
+        doReturn(true).when(subscriptionService).expireIfDue(1);
+        doReturn(NOW.plusSeconds(2).toEpochMilli()).when(clock).millis();
+        assertThat(expirationIndex.advance()).isEqualTo(1);
+
+        verify(subscriptionService).expireIfDue(1);
+        verify(subscriptionService, never()).expireIfDue(2);
+        assertThat(expirationIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rescheduleOnUpsert() {
+        expirationIndex.onUpserted(getSubscription(1, NOW.plusSeconds(1)));
+        expirationIndex.onUpserted(getSubscription(1, NOW.plusSeconds(60)));
+        doReturn(NOW.plusSeconds(5).toEpochMilli()).when(clock).millis();
+
+        assertThat(expirationIndex.advance()).isZero();
+        assertThat(expirationIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void dropCanceledSubscriptions() {
+        expirationIndex.onUpserted(getSubscription(1, NOW));
+        expirationIndex.onUpserted(getSubscription(2, NOW));
+        expirationIndex.onUpserted(getSubscription(3, NOW).setStatus(CANCELED));
+        expirationIndex.onCanceled(2);
+        doReturn(NOW.plusSeconds(1).toEpochMilli()).when(clock).millis();
+
+        expirationIndex.advance();
+
+        verify(subscriptionService).expireIfDue(1);
+        verify(subscriptionService, never()).expireIfDue(2);
+        verify(subscriptionService, never()).expireIfDue(3);
+    }
+
+    @Test
+    void skipSubscriptionsThatCannotExpire() {
+        expirationIndex.schedule(1, NOW);
+        expirationIndex.schedule(2, NOW);
+        expirationIndex.schedule(3, NOW);
+        doReturn(false).when(subscriptionService).expireIfDue(1);
+        doThrow(new IllegalStateException("connection refused")).when(subscriptionService).expireIfDue(2);
+        doReturn(true).when(subscriptionService).expireIfDue(3);
+        doReturn(NOW.toEpochMilli()).when(clock).millis();
+
+        assertThat(expirationIndex.advance()).isEqualTo(1);
+        assertThat(expirationIndex.size()).isZero();
+    }
+
+    @Test
+    void keepSubscriptionsRenewedOrCanceledBeforeAdvance() {
+        var subscriptionDao = new InMemorySubscriptionDao();
+        var fixedClock = Clock.fixed(NOW.plusSeconds(1), ZoneOffset.UTC);
+        var service = new SubscriptionService(subscriptionDao, CreateSubscriptionMapper.getInstance(),
+                CreateSubscriptionValidator.getInstance(), fixedClock);
+        var renewed = subscriptionDao.insert(getSubscription(null, NOW).setName("Music"));
+        var canceled = subscriptionDao.insert(getSubscription(null, NOW).setName("Map"));
+        var due = subscriptionDao.insert(getSubscription(null, NOW).setName("Movie"));
+        try (var index = new ExpirationIndex(service, fixedClock, Duration.ofSeconds(1))) {
+            service.addListener(index);
+            index.schedule(renewed.getId(), NOW);
+            index.schedule(canceled.getId(), NOW);
+            index.schedule(due.getId(), NOW);
+            subscriptionDao.update(renewed.setExpirationDate(NOW.plusSeconds(60)));
+            subscriptionDao.cancelIfActive(canceled.getId());
+
+            assertThat(index.advance()).isEqualTo(1);
+        }
+
+        assertThat(subscriptionDao.findById(renewed.getId()).get().getStatus()).isEqualTo(ACTIVE);
+        assertThat(subscriptionDao.findById(canceled.getId()).get().getStatus()).isEqualTo(CANCELED);
+        assertThat(subscriptionDao.findById(due.getId()).get().getStatus()).isEqualTo(EXPIRED);
+    }
+
+    @Test
+    void loadActiveSubscriptions(@Mock SubscriptionDao subscriptionDao) {
+        doReturn(new Page<>(List.of(getSubscription(1, NOW), getSubscription(2, NOW)), 2))
+                .when(subscriptionDao).findPage(isNull(), any(Integer.class), any());
+        doReturn(new Page<>(List.of(getSubscription(3, NOW.plusSeconds(60))), null))
+                .when(subscriptionDao).findPage(eq(2), any(Integer.class), any());
+
+        assertThat(expirationIndex.load(subscriptionDao)).isEqualTo(3);
+        assertThat(expirationIndex.size()).isEqualTo(3);
+    }
+
+    private static Subscription getSubscription(Integer id, Instant expirationDate) {
+        return Subscription.builder()
+                .id(id)
+                .userId(1)
+                .name("Music")
+                .provider(APPLE)
+                .expirationDate(expirationDate)
+                .status(ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static com.dmdev.entity.Status.CANCELED;
+import static com.dmdev.entity.Status.EXPIRED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpirationSweeperIT extends IntegrationTestBase {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private SubscriptionDao subscriptionDao;
+    private ExpirationSweeper sweeper;
+
+    @BeforeEach
+    void init() {
+        subscriptionDao = SubscriptionDao.getInstance();
+        sweeper = new ExpirationSweeper(subscriptionDao, Clock.fixed(NOW, ZoneOffset.UTC), 2, Duration.ZERO);
+    }
+
+    @AfterEach
+    void close() {
+        sweeper.close();
+    }
+
+    @Test
+    void sweepExpiresActiveSubscriptionsInChunks() {
+        var expired1 = subscriptionDao.insert(getSubscription(1, NOW.minusSeconds(1)));
+        var expired2 = subscriptionDao.insert(getSubscription(2, NOW.minusSeconds(2)));
+        var expired3 = subscriptionDao.insert(getSubscription(3, NOW.minusSeconds(3)));
+        var active = subscriptionDao.insert(getSubscription(4, NOW.plusSeconds(1)));
+        var canceled = subscriptionDao.insert(getSubscription(5, NOW.minusSeconds(1)).setStatus(CANCELED));
+
+        int actualResult = sweeper.sweep();
+
+        assertThat(actualResult).isEqualTo(3);
+        assertThat(subscriptionDao.findById(expired1.getId()).get().getStatus()).isEqualTo(EXPIRED);
+        assertThat(subscriptionDao.findById(expired2.getId()).get().getStatus()).isEqualTo(EXPIRED);
+        assertThat(subscriptionDao.findById(expired3.getId()).get().getStatus()).isEqualTo(EXPIRED);
+        assertThat(subscriptionDao.findById(active.getId()).get().getStatus()).isEqualTo(ACTIVE);
+        assertThat(subscriptionDao.findById(canceled.getId()).get().getStatus()).isEqualTo(CANCELED);
+    }
+
+    @Test
+    void publishExpiredIds() {
+        var expired = subscriptionDao.insert(getSubscription(1, NOW.minusSeconds(1)));
+        subscriptionDao.insert(getSubscription(2, NOW.plusSeconds(1)));
+        List<Integer> expiredIds = new ArrayList<>();
+        try (var publishingSweeper = new ExpirationSweeper(subscriptionDao, Clock.fixed(NOW, ZoneOffset.UTC), 2, Duration.ZERO,
+                new SubscriptionListener() {
+                    @Override
+                    public void onExpired(Integer subscriptionId) {
+                        expiredIds.add(subscriptionId);
+                    }
+                })) {
+            publishingSweeper.sweep();
+        }
+
+        assertThat(expiredIds).containsExactly(expired.getId());
+    }
+
+    @Test
+    void scheduledRunReportsExpiredCount() throws Exception {
+        subscriptionDao.insert(getSubscription(1, NOW.minusSeconds(1)));
+        var report = new CompletableFuture<Integer>();
+
+        sweeper.start(Duration.ofMinutes(1), report::complete);
+
+        assertThat(report.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    }
+
+    private static Subscription getSubscription(Integer userId, Instant expirationDate) {
+        return Subscription.builder()
+                .userId(userId)
+                .name("Music")
+                .provider(APPLE)
+                .expirationDate(expirationDate)
+                .status(ACTIVE)
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.dmdev.service;
 
 import com.dmdev.dao.SubscriptionDao;
 import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.dto.UpsertResult;
 import com.dmdev.entity.Subscription;
 import com.dmdev.integration.IntegrationTestBase;
 import com.dmdev.mapper.CreateSubscriptionMapper;
@@ -13,6 +14,11 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.dmdev.entity.Provider.APPLE;
 import static com.dmdev.entity.Status.ACTIVE;
@@ -43,6 +49,18 @@ public class SubscriptionServiceIT extends IntegrationTestBase {
         assertNotNull(subscription.getId());
     }
 
+    @Test
+    void upsertNative() {
+        var existingSubscription = subscriptionDao.insert(getSubscription());
+        CreateSubscriptionDto dto = getSubscriptionDto(existingSubscription.getUserId(), existingSubscription.getName(), daysFromNow(20));
+
+        Subscription subscription = subscriptionService.upsert(dto, UpsertMode.NATIVE);
+
+        assertThat(subscription.getId()).isEqualTo(existingSubscription.getId());
+        assertThat(subscriptionDao.findById(subscription.getId()).get().getExpirationDate())
+                .isEqualTo(dto.getExpirationDate());
+    }
+
     @Test
     void expire() {
         var subscription = subscriptionDao.insert(getSubscription());
@@ -66,6 +84,40 @@ public class SubscriptionServiceIT extends IntegrationTestBase {
         assertThat(actualSubscription.get().getStatus()).isEqualTo(CANCELED);
     }
 
+    @Test
+    void concurrentUpsertsOfSameKeyInsertOnce() throws Exception {
+        var dto = getSubscriptionDto(1, "Music", daysFromNow(20));
+        var executor = Executors.newFixedThreadPool(8);
+        List<Future<Subscription>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(executor.submit(() -> subscriptionService.upsert(dto)));
+        }
+        executor.shutdown();
+
+        for (Future<Subscription> future : futures) {
+            assertNotNull(future.get(10, TimeUnit.SECONDS).getId());
+        }
+        assertThat(subscriptionDao.findByUserId(1)).hasSize(1);
+    }
+
+    @Test
+    void upsertAll() {
+        var existingSubscription = subscriptionDao.insert(getSubscription());
+        var updateDto = getSubscriptionDto(existingSubscription.getUserId(), existingSubscription.getName(), daysFromNow(20));
+        var insertDto = getSubscriptionDto(2, "Map", daysFromNow(20));
+        var invalidDto = getSubscriptionDto(null, "Move", daysFromNow(20));
+
+        List<UpsertResult> results = subscriptionService.upsertAll(List.of(updateDto, insertDto, invalidDto), 2);
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getSubscription().getId()).isEqualTo(existingSubscription.getId());
+        assertNotNull(results.get(1).getSubscription().getId());
+        assertThat(results.get(2).isSuccess()).isFalse();
+        assertThat(subscriptionDao.findById(existingSubscription.getId()).get().getExpirationDate())
+                .isEqualTo(updateDto.getExpirationDate());
+        assertThat(subscriptionDao.findAll()).hasSize(2);
+    }
+
     private static Subscription getSubscription() {
         return Subscription.builder()
                 .userId(1)
@@ -77,11 +129,19 @@ public class SubscriptionServiceIT extends IntegrationTestBase {
     }
 
     private static CreateSubscriptionDto getSubscriptionDto() {
+        return getSubscriptionDto(11, "Music", daysFromNow(10));
+    }
+
+    private static CreateSubscriptionDto getSubscriptionDto(Integer userId, String name, Instant expirationDate) {
         return CreateSubscriptionDto.builder()
-                .userId(11)
-                .name("Music")
+                .userId(userId)
+                .name(name)
                 .provider(APPLE.name())
-                .expirationDate(Instant.now().plus(Duration.ofDays(10)).truncatedTo(ChronoUnit.SECONDS))
+                .expirationDate(expirationDate)
                 .build();
     }
+
+    private static Instant daysFromNow(int days) {
+        return Instant.now().plus(Duration.ofDays(days)).truncatedTo(ChronoUnit.SECONDS);
+    }
 }
@@ -2,6 +2,7 @@ package com.dmdev.service;
 
 import com.dmdev.dao.SubscriptionDao;
 import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.dto.UpsertResult;
 import com.dmdev.entity.Subscription;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
@@ -9,25 +10,38 @@ import com.dmdev.mapper.CreateSubscriptionMapper;
 import com.dmdev.validator.CreateSubscriptionValidator;
 import com.dmdev.validator.Error;
 import com.dmdev.validator.ValidationResult;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Provider.GOOGLE;
 import static com.dmdev.entity.Status.ACTIVE;
 import static com.dmdev.entity.Status.EXPIRED;
 import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class SubscriptionServiceTest {
@@ -38,14 +52,24 @@ class SubscriptionServiceTest {
     private CreateSubscriptionMapper createSubscriptionMapper;
     @Mock
     private CreateSubscriptionValidator createSubscriptionValidator;
+    @Mock
     private Clock clock;
     @InjectMocks
     private SubscriptionService subscriptionService;
 
+    @BeforeEach
+    void init() {
+        lenient().doAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get())
+                .when(subscriptionDao).inTransaction(any(), any());
+    }
+
     @Test
     void expire() {
         Subscription subscription = getSubscription();
+        Instant now = Instant.now();
 
+        doReturn(now).when(clock).instant();
+        doReturn(false).when(subscriptionDao).expireIfNotExpired(subscription.getId(), now);
         doReturn(Optional.of(subscription)).when(subscriptionDao).findById(subscription.getId());
 
         var exception = assertThrows(SubscriptionException.class,
@@ -58,6 +82,7 @@ class SubscriptionServiceTest {
     void cancelIfSubscriptionNotActive() {
         Subscription subscription = getSubscription();
 
+        doReturn(false).when(subscriptionDao).cancelIfActive(subscription.getId());
         doReturn(Optional.of(subscription)).when(subscriptionDao).findById(subscription.getId());
 
         var exception = assertThrows(SubscriptionException.class,
@@ -71,11 +96,36 @@ class SubscriptionServiceTest {
         Subscription subscription = getSubscription();
         subscription.setStatus(ACTIVE);
 
-        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(subscription.getId());
+        doReturn(true).when(subscriptionDao).cancelIfActive(subscription.getId());
 
         subscriptionService.cancel(subscription.getId());
 
-        assertThat(subscription.getStatus()).isNotEqualTo(ACTIVE);
+        verify(subscriptionDao).cancelIfActive(subscription.getId());
+        verify(subscriptionDao, never()).findById(subscription.getId());
+    }
+
+    @Test
+    void notifyListenersOnCancel() {
+        var canceled = new ArrayList<Integer>();
+        subscriptionService.addListener(new SubscriptionListener() {
+            @Override
+            public void onCanceled(Integer subscriptionId) {
+                canceled.add(subscriptionId);
+            }
+        });
+        doReturn(true).when(subscriptionDao).cancelIfActive(1);
+
+        subscriptionService.cancel(1);
+
+        assertThat(canceled).containsExactly(1);
+    }
+
+    @Test
+    void cancelIfSubscriptionNotFound() {
+        doReturn(false).when(subscriptionDao).cancelIfActive(1);
+        doReturn(Optional.empty()).when(subscriptionDao).findById(1);
+
+        assertThrows(IllegalArgumentException.class, () -> subscriptionService.cancel(1));
     }
 
     @Test
@@ -121,6 +171,116 @@ class SubscriptionServiceTest {
         assertThat(actualSubscription).isEqualTo(subscription.setStatus(ACTIVE));
     }
 
+    @Test
+    void upsertNative() {
+        Instant instant = Instant.now().plus(Duration.ofDays(10).truncatedTo(SECONDS));
+        CreateSubscriptionDto dto = getSubscriptionDto(instant);
+        Subscription subscription = getSubscription().setExpirationDate(instant).setStatus(ACTIVE);
+
+        doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(dto);
+        doReturn(subscription).when(createSubscriptionMapper).map(dto);
+        doReturn(subscription.setId(1)).when(subscriptionDao).upsertByKey(subscription);
+
+        Subscription actualSubscription = subscriptionService.upsert(dto, UpsertMode.NATIVE);
+
+        assertThat(actualSubscription.getId()).isEqualTo(1);
+        verify(subscriptionDao, never()).findByUserId(dto.getUserId());
+    }
+
+    @Test
+    void upsertAllSkipsInvalidDto() {
+        Instant instant = Instant.now().plus(Duration.ofDays(10).truncatedTo(SECONDS));
+        CreateSubscriptionDto validDto = getSubscriptionDto(instant);
+        CreateSubscriptionDto invalidDto = CreateSubscriptionDto.builder()
+                .userId(12)
+                .name("")
+                .provider(APPLE.name())
+                .expirationDate(instant)
+                .build();
+        Subscription subscription = getSubscription().setExpirationDate(instant).setStatus(ACTIVE);
+
+        var validationResult = new ValidationResult();
+        validationResult.add(Error.of(101, "name is invalid"));
+        doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(validDto);
+        doReturn(validationResult).when(createSubscriptionValidator).validate(invalidDto);
+        doReturn(Map.of()).when(subscriptionDao).findByUserIds(Set.of(validDto.getUserId()));
+        doReturn(subscription).when(createSubscriptionMapper).map(validDto);
+
+        List<UpsertResult> actualResult = subscriptionService.upsertAll(List.of(validDto, invalidDto));
+
+        assertThat(actualResult).containsExactly(
+                UpsertResult.success(validDto, subscription),
+                UpsertResult.failure(invalidDto, validationResult.getErrors()));
+        verify(subscriptionDao).insertAll(List.of(subscription));
+        verify(subscriptionDao).updateAll(List.of());
+    }
+
+    @Test
+    void upsertAllNotifiesCommittedChunksAndFailsRolledBackChunk() {
+        Instant instant = Instant.now().plus(Duration.ofDays(10).truncatedTo(SECONDS));
+        CreateSubscriptionDto committedDto = getSubscriptionDto(instant);
+        CreateSubscriptionDto failedDto = CreateSubscriptionDto.builder()
+                .userId(12)
+                .name("Music")
+                .provider(APPLE.name())
+                .expirationDate(instant)
+                .build();
+        Subscription committed = getSubscription().setExpirationDate(instant).setStatus(ACTIVE);
+        Subscription failed = getSubscription().setUserId(12).setExpirationDate(instant).setStatus(ACTIVE);
+        var upserted = new ArrayList<Subscription>();
+        subscriptionService.addListener(new SubscriptionListener() {
+            @Override
+            public void onUpserted(Subscription subscription) {
+                upserted.add(subscription);
+            }
+        });
+        doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(any());
+        doReturn(Map.of()).when(subscriptionDao).findByUserIds(any());
+        doReturn(committed).when(createSubscriptionMapper).map(committedDto);
+        doReturn(failed).when(createSubscriptionMapper).map(failedDto);
+        lenient().doThrow(new IllegalStateException("duplicate key", new SQLIntegrityConstraintViolationException("duplicate key", "23505")))
+                .when(subscriptionDao).insertAll(List.of(failed));
+
+        List<UpsertResult> actualResult = subscriptionService.upsertAll(List.of(committedDto, failedDto), 1);
+
+        assertThat(actualResult).containsExactly(
+                UpsertResult.success(committedDto, committed),
+                UpsertResult.failure(failedDto, List.of(Error.of(200, "subscription is not saved: duplicate key"))));
+        assertThat(upserted).containsExactly(committed);
+    }
+
+    @Test
+    void upsertAllPropagatesInfrastructureFailure() {
+        Instant instant = Instant.now().plus(Duration.ofDays(10).truncatedTo(SECONDS));
+        CreateSubscriptionDto dto = getSubscriptionDto(instant);
+        doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(dto);
+        doThrow(new IllegalStateException("connection lost")).when(subscriptionDao).findByUserIds(Set.of(dto.getUserId()));
+
+        assertThrows(IllegalStateException.class, () -> subscriptionService.upsertAll(List.of(dto)));
+    }
+
+    @Test
+    void upsertAllUpdatesProviderOfExistingSubscription() {
+        Instant instant = Instant.now().plus(Duration.ofDays(10).truncatedTo(SECONDS));
+        CreateSubscriptionDto dto = CreateSubscriptionDto.builder()
+                .userId(11)
+                .name("Music")
+                .provider(GOOGLE.name())
+                .expirationDate(instant)
+                .build();
+        Subscription existing = getSubscription().setId(1);
+        doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(dto);
+        doReturn(Map.of(11, List.of(existing))).when(subscriptionDao).findByUserIds(Set.of(11));
+
+        List<UpsertResult> actualResult = subscriptionService.upsertAll(List.of(dto));
+
+        assertThat(actualResult).extracting(UpsertResult::getSubscription)
+                .extracting(Subscription::getId, Subscription::getProvider, Subscription::getStatus)
+                .containsExactly(tuple(1, GOOGLE, ACTIVE));
+        verify(subscriptionDao).insertAll(List.of());
+        verify(subscriptionDao).updateAll(List.of(existing));
+    }
+
     private static Subscription getSubscription() {
         return Subscription.builder()
                 .userId(11)
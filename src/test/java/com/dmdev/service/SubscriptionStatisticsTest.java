@@ -0,0 +1,90 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.ExpirationBucket;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionStatisticsTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-01T00:00:00Z");
+
+    @Mock
+    private SubscriptionDao subscriptionDao;
+    private SubscriptionStatistics statistics;
+
+    @BeforeEach
+    void init() {
+        statistics = new SubscriptionStatistics(subscriptionDao, Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void cacheCountsUntilChanged() {
+        var counts = List.of(new SubscriptionCount(ACTIVE, APPLE, 3));
+        doReturn(counts).when(subscriptionDao).countByStatusAndProvider(SubscriptionFilter.empty());
+
+        assertThat(statistics.countByStatusAndProvider()).isEqualTo(counts);
+        assertThat(statistics.countByStatusAndProvider()).isEqualTo(counts);
+        verify(subscriptionDao, times(1)).countByStatusAndProvider(any());
+
+        statistics.onCanceled(1);
+        statistics.countByStatusAndProvider();
+
+        verify(subscriptionDao, times(2)).countByStatusAndProvider(any());
+        assertThat(statistics.stats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateAtMostOncePerTtl(@Mock Clock clock) {
+        var rateLimited = new SubscriptionStatistics(subscriptionDao, clock, Duration.ofMinutes(1));
+        doReturn(List.of()).when(subscriptionDao).countByStatusAndProvider(SubscriptionFilter.empty());
+        doReturn(NOW.toEpochMilli()).when(clock).millis();
+
+        rateLimited.onCanceled(1);
+        rateLimited.countByStatusAndProvider();
+        rateLimited.onCanceled(2);
+        rateLimited.onExpired(3);
+        rateLimited.countByStatusAndProvider();
+        verify(subscriptionDao, times(1)).countByStatusAndProvider(any());
+
+        doReturn(NOW.plusSeconds(60).toEpochMilli()).when(clock).millis();
+        rateLimited.onCanceled(4);
+        rateLimited.countByStatusAndProvider();
+
+        verify(subscriptionDao, times(2)).countByStatusAndProvider(any());
+    }
+
+    @Test
+    void bucketActiveExpirations() {
+        var filter = SubscriptionFilter.builder()
+                .status(ACTIVE)
+                .build();
+        var buckets = List.of(new ExpirationBucket(NOW, NOW.plus(Duration.ofDays(7)), 5));
+        doReturn(buckets).when(subscriptionDao).countByExpiration(filter, NOW, Duration.ofDays(7), 1);
+
+        assertThat(statistics.countActiveExpiringWithin(Duration.ofDays(7), Duration.ofDays(7))).isEqualTo(buckets);
+        assertThat(statistics.countActiveExpiringWithin(Duration.ofDays(7), Duration.ofDays(7))).isEqualTo(buckets);
+
+        verify(subscriptionDao, times(1)).countByExpiration(any(), any(), any(), any(Integer.class));
+    }
+}
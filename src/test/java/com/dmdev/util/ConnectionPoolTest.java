@@ -0,0 +1,147 @@
+package com.dmdev.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void init() {
+        pool = new ConnectionPool(PoolConfig.builder()
+                .url("jdbc:h2:mem:pool_test;DB_CLOSE_DELAY=-1")
+                .user("sa")
+                .password("")
+                .maxSize(2)
+                .acquireTimeout(Duration.ofMillis(100))
+                .statementCacheSize(2)
+                .build());
+    }
+
+    @AfterEach
+    void close() {
+        pool.close();
+    }
+
+    @Test
+    void reusePhysicalConnectionAfterClose() throws SQLException {
+        String firstConnection;
+        try (var connection = pool.getConnection()) {
+            firstConnection = connection.toString();
+        }
+
+        try (var connection = pool.getConnection()) {
+            assertThat(connection.toString()).isEqualTo(firstConnection);
+        }
+        assertThat(pool.stats().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void timeoutIfPoolExhausted() throws SQLException {
+        try (var first = pool.getConnection();
+             var second = pool.getConnection()) {
+            assertThat(first).isNotSameAs(second);
+            assertThrows(SQLTransientConnectionException.class, () -> pool.getConnection());
+        }
+
+        assertThat(pool.stats().getTimeouts()).isEqualTo(1);
+    }
+
+    @Test
+    void statsReflectBorrowedConnections() throws SQLException {
+        try (var connection = pool.getConnection()) {
+            var stats = pool.stats();
+
+            assertThat(connection.isClosed()).isFalse();
+            assertThat(stats.getActive()).isEqualTo(1);
+            assertThat(stats.getIdle()).isZero();
+        }
+
+        var stats = pool.stats();
+        assertThat(stats.getActive()).isZero();
+        assertThat(stats.getIdle()).isEqualTo(1);
+        assertThat(stats.getAcquired()).isEqualTo(1);
+    }
+
+    @Test
+    void closedConnectionRejectsUse() throws SQLException {
+        var connection = pool.getConnection();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+    }
+
+    @Test
+    void reusePreparedStatementFromCache() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            try (var connection = pool.getConnection();
+                 var preparedStatement = connection.prepareStatement("SELECT ?")) {
+                preparedStatement.setObject(1, i);
+                var resultSet = preparedStatement.executeQuery();
+                resultSet.next();
+
+                assertThat(resultSet.getInt(1)).isEqualTo(i);
+            }
+        }
+
+        var stats = pool.stats();
+        assertThat(stats.getStatementCacheMisses()).isEqualTo(1);
+        assertThat(stats.getStatementCacheHits()).isEqualTo(2);
+    }
+
+    @Test
+    void resetStatementSettingsBeforeReuse() throws SQLException {
+        try (var connection = pool.getConnection();
+             var preparedStatement = connection.prepareStatement("SELECT 1")) {
+            preparedStatement.setFetchSize(7);
+            preparedStatement.setMaxRows(1);
+            preparedStatement.setQueryTimeout(5);
+        }
+
+        try (var connection = pool.getConnection();
+             var preparedStatement = connection.prepareStatement("SELECT 1")) {
+            assertThat(preparedStatement.getMaxRows()).isZero();
+            assertThat(preparedStatement.getQueryTimeout()).isZero();
+            assertThat(preparedStatement.getFetchSize()).isNotEqualTo(7);
+        }
+        assertThat(pool.stats().getStatementCacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void evictLeastRecentlyUsedStatement() throws SQLException {
+        try (var connection = pool.getConnection()) {
+            for (String sql : List.of("SELECT 1", "SELECT 2", "SELECT 3", "SELECT 1")) {
+                connection.prepareStatement(sql).close();
+            }
+        }
+
+        var stats = pool.stats();
+        assertThat(stats.getStatementCacheEvictions()).isEqualTo(2);
+        assertThat(stats.getStatementCacheMisses()).isEqualTo(4);
+    }
+
+    @Test
+    void resetAutoCommitOnRelease() throws SQLException {
+        try (var connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+        }
+
+        try (var connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+            assertFalse(connection.isReadOnly());
+        }
+    }
+}
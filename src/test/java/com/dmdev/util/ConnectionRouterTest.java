@@ -0,0 +1,116 @@
+package com.dmdev.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionRouterTest {
+
+    private ConnectionRouter router;
+
+    @AfterEach
+    void close() {
+        router.close();
+    }
+
+    @Test
+    void routeReadsRoundRobinAndWritesToPrimary() throws SQLException {
+        router = createRouter(ReplicaBalancing.ROUND_ROBIN, Duration.ZERO, "replica1", "replica2");
+
+        assertThat(List.of(readNode(), readNode(), readNode(), readNode()))
+                .containsExactly("replica1", "replica2", "replica1", "replica2");
+        try (var connection = router.write()) {
+            assertThat(node(connection)).isEqualTo("primary");
+        }
+    }
+
+    @Test
+    void readYourWritesAfterWrite() throws SQLException {
+        router = createRouter(ReplicaBalancing.ROUND_ROBIN, Duration.ofMinutes(1), "replica1");
+
+        assertThat(readNode()).isEqualTo("replica1");
+        router.write().close();
+
+        assertThat(readNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void readFromPrimaryOnRequest() {
+        router = createRouter(ReplicaBalancing.ROUND_ROBIN, Duration.ZERO, "replica1");
+
+        var node = router.readFromPrimary(() -> {
+            try {
+                return readNode();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    void preferLeastInFlightReplica() throws SQLException {
+        router = createRouter(ReplicaBalancing.LEAST_IN_FLIGHT, Duration.ZERO, "replica1", "replica2");
+
+        try (var busy = router.getReplicas().get(0).getConnection()) {
+            assertThat(busy.isClosed()).isFalse();
+            assertThat(List.of(readNode(), readNode(), readNode()))
+                    .containsOnly("replica2");
+        }
+    }
+
+    @Test
+    void readFromPrimaryWithoutReplicas() throws SQLException {
+        router = createRouter(ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        assertThat(readNode()).isEqualTo("primary");
+    }
+
+    private String readNode() throws SQLException {
+        try (var connection = router.read()) {
+            return node(connection);
+        }
+    }
+
+    private static String node(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            var resultSet = statement.executeQuery("SELECT name FROM node");
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static ConnectionRouter createRouter(ReplicaBalancing balancing, Duration stickiness, String... replicas) {
+        return new ConnectionRouter(
+                createPool("primary"),
+                Arrays.stream(replicas).map(ConnectionRouterTest::createPool).toList(),
+                balancing,
+                stickiness);
+    }
+
+    private static ConnectionPool createPool(String name) {
+        var pool = new ConnectionPool(PoolConfig.builder()
+                .url("jdbc:h2:mem:router_" + name + ";DB_CLOSE_DELAY=-1")
+                .user("sa")
+                .password("")
+                .maxSize(2)
+                .build());
+        try (var connection = pool.getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+            statement.execute("DELETE FROM node");
+            statement.execute("INSERT INTO node VALUES ('" + name + "')");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dmdev.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedLockTest {
+
+    @Test
+    void roundStripesUpToPowerOfTwo() {
+        assertThat(new StripedLock(1).size()).isEqualTo(1);
+        assertThat(new StripedLock(48).size()).isEqualTo(64);
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(0));
+    }
+
+    @Test
+    void sameKeySharesLock() {
+        var stripedLock = new StripedLock(16);
+
+        assertThat(stripedLock.get("user-1")).isSameAs(stripedLock.get(new String("user-1")));
+    }
+
+    @Test
+    void serializeSameKey() throws InterruptedException {
+        var stripedLock = new StripedLock(16);
+        var executor = Executors.newFixedThreadPool(8);
+        var inside = new AtomicInteger();
+        var maxInside = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            executor.execute(() -> stripedLock.withLock("user-1", () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                Thread.yield();
+                return inside.decrementAndGet();
+            }));
+        }
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertThat(maxInside.get()).isEqualTo(1);
+    }
+
+    @Test
+    void runDifferentStripesInParallel() throws InterruptedException {
+        var stripedLock = new StripedLock(16);
+        var first = 1;
+        var second = 2;
+        var bothInside = new CountDownLatch(2);
+        var executor = Executors.newFixedThreadPool(2);
+        for (Integer key : new Integer[]{first, second}) {
+            executor.execute(() -> stripedLock.withLock(key, () -> {
+                bothInside.countDown();
+                try {
+                    return bothInside.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+        }
+        executor.shutdown();
+
+        assertThat(stripedLock.get(first)).isNotSameAs(stripedLock.get(second));
+        assertTrue(bothInside.await(5, TimeUnit.SECONDS));
+    }
+}
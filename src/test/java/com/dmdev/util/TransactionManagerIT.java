@@ -0,0 +1,92 @@
+package com.dmdev.util;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static com.dmdev.entity.Provider.APPLE;
+import static com.dmdev.entity.Status.ACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionManagerIT extends IntegrationTestBase {
+
+    private final SubscriptionDao dao = SubscriptionDao.getInstance();
+
+    @Test
+    void commitUsingSingleConnection() {
+        var acquired = ConnectionManager.stats().getAcquired();
+
+        var subscription = TransactionManager.inTransaction(() -> {
+            var inserted = dao.insert(getSubscription("Music"));
+            return dao.update(inserted.setName("Map"));
+        });
+
+        assertThat(ConnectionManager.stats().getAcquired()).isEqualTo(acquired + 1);
+        assertThat(dao.findById(subscription.getId())).contains(subscription);
+    }
+
+    @Test
+    void rollbackOnException() {
+        var exception = assertThrows(IllegalStateException.class, () -> TransactionManager.inTransaction(() -> {
+            dao.insert(getSubscription("Music"));
+            throw new IllegalStateException("boom");
+        }));
+
+        assertThat(exception).hasMessage("boom");
+        assertThat(dao.findAll()).isEmpty();
+        assertFalse(TransactionManager.isActive());
+    }
+
+    @Test
+    void joinOuterTransaction() {
+        assertThrows(IllegalStateException.class, () -> TransactionManager.inTransaction(() -> {
+            TransactionManager.inTransaction(() -> dao.insert(getSubscription("Music")));
+            throw new IllegalStateException();
+        }));
+
+        assertThat(dao.findAll()).isEmpty();
+    }
+
+    @Test
+    void applyOptionsAndResetOnRelease() throws Exception {
+        var options = TransactionOptions.builder()
+                .isolation(IsolationLevel.SERIALIZABLE)
+                .readOnly(true)
+                .build();
+
+        TransactionManager.inTransaction(options, () -> {
+            try (var connection = ConnectionManager.get()) {
+                assertTrue(TransactionManager.isActive());
+                assertThat(connection.getTransactionIsolation()).isEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+                assertFalse(connection.getAutoCommit());
+                return dao.findAll();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try (var connection = ConnectionManager.get()) {
+            assertTrue(connection.getAutoCommit());
+            assertThat(connection.getTransactionIsolation()).isNotEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+        }
+    }
+
+    private static Subscription getSubscription(String name) {
+        return Subscription.builder()
+                .userId(1)
+                .name(name)
+                .provider(APPLE)
+                .expirationDate(Instant.now().plus(Duration.ofDays(10)).truncatedTo(ChronoUnit.SECONDS))
+                .status(ACTIVE)
+                .build();
+    }
+}